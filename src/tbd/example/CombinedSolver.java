@@ -0,0 +1,648 @@
+package tbd.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Branch-and-bound search behind the COMBINED policy of the PolicyEnforcer.
+ *
+ * Movable players that no constraint can tell apart (same roster, same rank, and same group parity when parity is
+ * weighted) are pooled into classes, at most 400 of them, and the search decides how many players of each class
+ * end up in the left roster. Classes are branched highest rank first, and every branch is pruned against the best
+ * arrangement found so far using a lower bound on the count and rank sum violations that the undecided classes
+ * could still reach together: for each way of splitting their count that meets the count difference, the rank sums
+ * they can add lie between those of their lowest and highest ranked players.
+ *
+ * The unchanged arrangement is the first incumbent, so the result is never worse than the original. It is then
+ * challenged by a greedy arrangement made from it the way BY_RANK makes one, and when parity is weighted, by the
+ * BY_GROUP arrangement and a greedy arrangement made from that. These usually meet the count and rank constraints
+ * before any branching.
+ *
+ * Between arrangements of equal cost, the one moving the fewest players wins. The search stops when no
+ * arrangement can beat the best one, or when the time budget of the Constraints runs out.
+ *
+ * @see Constraints
+ * @see PolicyEnforcer
+ */
+class CombinedSolver {
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+    private static final double EPSILON = 1e-9;
+    /* Movable rank mass up to which the rank sum window is checked with an exact subset sum table */
+    private static final long SUBSET_SUM_LIMIT = 1L << 22;
+
+    /*
+     * Movable players that are interchangeable for the search.
+     */
+    private static class PlayerClass {
+        final int rank;
+        final int side;
+        final boolean even;
+        final List<String> names = new ArrayList<String>();
+
+        PlayerClass(int rank, int side, boolean even) {
+            this.rank = rank;
+            this.side = side;
+            this.even = even;
+        }
+    }
+
+    // Problem
+    private final Roster left;
+    private final Roster right;
+    private final Rules rules;
+    private final Constraints constraints;
+    private final double countWeight;
+    private final double rankWeight;
+    private final double parityWeight;
+    private PlayerClass[] classes;
+    @SuppressWarnings("unchecked")
+    private final List<Integer>[] classesByRank = (List<Integer>[]) new List<?>[101];
+    private int[] remainingCount;
+    private long[] remainingRank;
+    private long excludedCountGap;
+    private long excludedRankGap;
+    private long[] remainingStayGap;
+    private int[] remainingWrong;
+
+    // Search state
+    private int leftCount;
+    private int rightCount;
+    private long leftSum;
+    private long rightSum;
+    private int parityWrong;
+    private int moves;
+    private int[] value;
+    private int[] seeded;
+
+    // Best arrangement
+    private int[] best;
+    private double bestCost;
+    private int bestMoves;
+    private int bestParityWrong;
+
+    private EnumMap<Constraints.Constraint, Status> statuses;
+
+    /**
+     * Prepare a search over a pair of rosters. The rosters are changed only by solve().
+     *
+     * @param aLeft Left roster.
+     * @param aRight Right roster.
+     * @param someRules Rules for exclusions and the maximum group size, which every move keeps to.
+     * @param someConstraints Weighted constraints to meet.
+     */
+    CombinedSolver(Roster aLeft, Roster aRight, Rules someRules, Constraints someConstraints) {
+        left = aLeft;
+        right = aRight;
+        rules = someRules;
+        constraints = someConstraints;
+        countWeight = constraints.getWeight(Constraints.Constraint.COUNT_DIFFERENCE);
+        rankWeight = constraints.getWeight(Constraints.Constraint.RANK_SUM_WINDOW);
+        parityWeight = constraints.getWeight(Constraints.Constraint.GROUP_PARITY);
+        statuses = new EnumMap<Constraints.Constraint, Status>(Constraints.Constraint.class);
+    }
+
+    /**
+     * Status of each constraint with a weight greater than 0, after solve().
+     *
+     * @return Map of constraint to status.
+     */
+    EnumMap<Constraints.Constraint, Status> getStatuses() {
+        return statuses;
+    }
+
+    /**
+     * Search for the best arrangement and apply it to the rosters.
+     *
+     * @return ALREADY_ARRANGED or SUCCESS if every weighted constraint is met, otherwise the status of the most
+     *         heavily weighted constraint that is not met.
+     */
+    Status solve() {
+        buildClasses();
+        search(System.nanoTime() + constraints.getTimeBudgetMillis() * 1_000_000L);
+        boolean moved = apply();
+        return report(moved);
+    }
+
+    /* Pool movable players into classes, and count excluded players into the fixed part of the state */
+    private void buildClasses() {
+        HashMap<Integer, PlayerClass> byKey = new HashMap<Integer, PlayerClass>();
+
+        Roster[] sides = {left, right};
+        for (int side = LEFT; side <= RIGHT; side++) {
+            final int s = side;
+            sides[side].forEachIndexed((i, name, rank, group) -> {
+                if (rules.isNameExcluded(name)) {
+                    if (s == LEFT) {
+                        leftCount++;
+                        leftSum += rank;
+                    } else {
+                        rightCount++;
+                        rightSum += rank;
+                    }
+                    return;
+                }
+
+                boolean even = Roster.CheckParity(group) == Roster.GroupParity.EVEN;
+                int key = (((parityWeight > 0 && even) ? 1 : 0) << 8) | (rank << 1) | s;
+                byKey.computeIfAbsent(key, k -> new PlayerClass(rank, s, even)).names.add(name);
+            });
+        }
+
+        excludedCountGap = leftCount - rightCount;
+        excludedRankGap = leftSum - rightSum;
+
+        // Highest ranks first, so the undecided classes are always the lowest ranked ones
+        classes = byKey.values().toArray(new PlayerClass[0]);
+        Arrays.sort(classes, (a, b) -> Integer.compare(b.rank, a.rank));
+        remainingCount = new int[classes.length + 1];
+        remainingRank = new long[classes.length + 1];
+        remainingStayGap = new long[classes.length + 1];
+        remainingWrong = new int[classes.length + 1];
+        for (int d = classes.length - 1; d >= 0; d--) {
+            PlayerClass k = classes[d];
+            int c = k.names.size();
+            remainingCount[d] = remainingCount[d + 1] + c;
+            remainingRank[d] = remainingRank[d + 1] + (long) k.rank * c;
+            remainingStayGap[d] = remainingStayGap[d + 1] + ((k.side == LEFT) ? c : -c);
+            remainingWrong[d] = remainingWrong[d + 1] + ((k.even != (k.side == LEFT)) ? c : 0);
+            if (classesByRank[k.rank] == null) {
+                classesByRank[k.rank] = new ArrayList<Integer>();
+            }
+            classesByRank[k.rank].add(d);
+        }
+    }
+
+    /* Depth-first branch and bound, kept iterative since a class may hold a single player */
+    private void search(long deadline) {
+        int n = classes.length;
+        value = new int[n];
+        seeded = new int[n];
+        int[] preferred = new int[n];
+        int[] up = new int[n];
+        int[] down = new int[n];
+        boolean[] upTurn = new boolean[n];
+        boolean[] started = new boolean[n];
+
+        // The unchanged arrangement is the first incumbent, challenged by a greedy arrangement made from it, and
+        // when parity is weighted, by the BY_GROUP arrangement and a greedy arrangement made from that
+        for (int d = 0; d < n; d++) {
+            shift(d, stay(d), 1);
+        }
+        record();
+        greedy();
+        offer();
+        if (parityWeight > 0) {
+            for (int d = 0; d < n; d++) {
+                shift(d, value[d], -1);
+                shift(d, classes[d].even ? classes[d].names.size() : 0, 1);
+            }
+            offer();
+            greedy();
+            offer();
+        }
+        for (int d = n - 1; d >= 0; d--) {
+            shift(d, value[d], -1);
+        }
+        seeded = best.clone();
+        int leastMoves = fewestMoves(0);
+        if (n == 0) {
+            return;
+        }
+
+        int d = 0;
+        preferred[0] = prefer(0);
+        long nodes = 0;
+        while (d >= 0) {
+            if (bestCost <= EPSILON && bestMoves <= leastMoves) {
+                return;
+            }
+            if ((++nodes & 1023) == 0 && System.nanoTime() > deadline) {
+                return;
+            }
+
+            // Next value for this class: the preferred one, then outwards from it in both directions
+            int c = classes[d].names.size();
+            int v = -1;
+            if (!started[d]) {
+                started[d] = true;
+                v = preferred[d];
+                up[d] = v + 1;
+                down[d] = v - 1;
+                upTurn[d] = false;
+            } else {
+                for (int tries = 0; tries < 2 && v < 0; tries++) {
+                    upTurn[d] = !upTurn[d];
+                    if (upTurn[d] && up[d] <= c) {
+                        v = up[d]++;
+                    } else if (!upTurn[d] && down[d] >= 0) {
+                        v = down[d]--;
+                    }
+                }
+            }
+
+            if (v < 0) {
+                started[d] = false;
+                d--;
+                if (d >= 0) {
+                    shift(d, value[d], -1);
+                }
+                continue;
+            }
+
+            shift(d, v, 1);
+            if (!beatsBest(lowerBound(d + 1), d + 1)) {
+                shift(d, v, -1);
+            } else if (d + 1 == n) {
+                record();
+                shift(d, v, -1);
+            } else {
+                d++;
+                preferred[d] = prefer(d);
+            }
+        }
+    }
+
+    /*
+     * Starting from the current, complete, arrangement, even out the counts and then close the rank sum gap the way
+     * the BY_RANK policy does.
+     */
+    private void greedy() {
+        int limit = constraints.getMaximumCountDifference();
+        long window = constraints.getRankSumWindow();
+
+        // First even out the counts, each time moving the rank that best closes an equal share of the rank sum gap
+        // over the moves still needed, so that the counts and the rank sums tend to be met together
+        while (countWeight > 0 && Math.abs(leftCount - rightCount) > limit) {
+            int from = (leftCount > rightCount) ? LEFT : RIGHT;
+            int needed = (Math.abs(leftCount - rightCount) - limit + 1) / 2;
+            double target = ((from == LEFT) ? leftSum - rightSum : rightSum - leftSum) / (2.0 * needed);
+            int best = -1;
+            for (int rank = 1; rank <= 100; rank++) {
+                int d = pick(from, rank);
+                if (d >= 0 && (best < 0 || Math.abs(rank - target) < Math.abs(classes[best].rank - target))) {
+                    best = d;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            moveOne(best, from);
+        }
+
+        // Then improve the rank sums with single moves or swaps until they are within the window
+        int[] outClass = new int[101];
+        int[] inClass = new int[101];
+        while (rankWeight > 0 && Math.abs(leftSum - rightSum) > window) {
+            int from = (leftSum > rightSum) ? LEFT : RIGHT;
+            long gap = Math.abs(leftSum - rightSum);
+            long countGap = (from == LEFT) ? leftCount - rightCount : rightCount - leftCount;
+            for (int rank = 1; rank <= 100; rank++) {
+                outClass[rank] = pick(from, rank);
+                inClass[rank] = pick(1 - from, rank);
+            }
+
+            // Best single move, allowed only while the counts stay within the limit
+            int bestOut = 0;
+            int bestIn = 0;
+            long bestGap = gap;
+            if (countWeight == 0 || Math.abs(countGap - 2) <= limit) {
+                for (int out = 1; out <= 100; out++) {
+                    if (outClass[out] >= 0 && Math.abs(gap - 2L * out) < bestGap) {
+                        bestOut = out;
+                        bestGap = Math.abs(gap - 2L * out);
+                    }
+                }
+            }
+            // Best swap, which leaves the counts alone
+            for (int out = 2; out <= 100; out++) {
+                if (outClass[out] < 0) {
+                    continue;
+                }
+                for (int in = 1; in < out; in++) {
+                    if (inClass[in] >= 0 && Math.abs(gap - 2L * (out - in)) < bestGap) {
+                        bestOut = out;
+                        bestIn = in;
+                        bestGap = Math.abs(gap - 2L * (out - in));
+                    }
+                }
+            }
+
+            if (bestOut == 0) {
+                break;
+            }
+            moveOne(outClass[bestOut], from);
+            if (bestIn != 0) {
+                moveOne(inClass[bestIn], 1 - from);
+            }
+        }
+    }
+
+    /* Keep the current, complete, arrangement if it beats the best one */
+    private void offer() {
+        if (beatsBest(lowerBound(classes.length), classes.length)) {
+            record();
+        }
+    }
+
+    /*
+     * A class with a player of the specified rank on the specified side, preferring one whose players belong on
+     * the other side by group parity, or -1 if there is none.
+     */
+    private int pick(int side, int rank) {
+        int found = -1;
+        if (classesByRank[rank] != null) {
+            for (int d : classesByRank[rank]) {
+                int there = (side == LEFT) ? value[d] : classes[d].names.size() - value[d];
+                if (there > 0) {
+                    if (parityWeight > 0 && classes[d].even == (side == RIGHT)) {
+                        return d;
+                    }
+                    found = d;
+                }
+            }
+        }
+        return found;
+    }
+
+    /* Move one player of the assigned class d away from the specified side */
+    private void moveOne(int d, int side) {
+        int v = value[d];
+        shift(d, v, -1);
+        shift(d, (side == LEFT) ? v - 1 : v + 1, 1);
+    }
+
+    /* Number of players of class d that are in the left roster now */
+    private int stay(int d) {
+        return classes[d].side == LEFT ? classes[d].names.size() : 0;
+    }
+
+    /* Value to try first for class d: whichever simple candidate gives the lowest bound */
+    private int prefer(int d) {
+        PlayerClass k = classes[d];
+        int c = k.names.size();
+        int[] candidates = {
+                seeded[d],
+                stay(d),
+                k.even ? c : 0,
+                clamp((c - (leftCount - rightCount)) / 2, c),
+                clamp((int) (((long) c * k.rank - (leftSum - rightSum)) / (2L * k.rank)), c)
+        };
+
+        int best = candidates[0];
+        double bestBound = Double.MAX_VALUE;
+        for (int v : candidates) {
+            shift(d, v, 1);
+            double bound = lowerBound(d + 1);
+            shift(d, v, -1);
+            if (bound < bestBound - EPSILON) {
+                best = v;
+                bestBound = bound;
+            }
+        }
+        return best;
+    }
+
+    /* Assign (sign 1) or unassign (sign -1) v players of class d to the left roster, the rest to the right */
+    private void shift(int d, int v, int sign) {
+        PlayerClass k = classes[d];
+        int toLeft = sign * v;
+        int toRight = sign * (k.names.size() - v);
+        leftCount += toLeft;
+        rightCount += toRight;
+        leftSum += (long) toLeft * k.rank;
+        rightSum += (long) toRight * k.rank;
+        moves += (k.side == LEFT) ? toRight : toLeft;
+        parityWrong += k.even ? toRight : toLeft;
+        value[d] = v;
+    }
+
+    /* Lowest cost any arrangement of classes d and onward can reach from the current state */
+    private double lowerBound(int d) {
+        long countGap = leftCount - rightCount;
+        long rankGap = leftSum - rightSum;
+        int remaining = remainingCount[d];
+        double cost = countWeight * countViolation(countGap, remaining)
+                + rankWeight * rankViolation(rankGap, remainingRank[d]);
+
+        // When the counts can be met, either they are, and the rank sums are limited by which players can make up
+        // each such split, or they are not, at a cost of at least one player of count difference
+        int limit = constraints.getMaximumCountDifference();
+        long lowSplit = Math.max(0, Math.floorDiv(remaining - countGap - limit + 1, 2));
+        long highSplit = Math.min(remaining, Math.floorDiv(remaining - countGap + limit, 2));
+        if (countWeight > 0 && rankWeight > 0 && remaining > 0 && lowSplit <= highSplit) {
+            double joint = countWeight + cost;
+            for (long k = lowSplit; k <= highSplit; k++) {
+                long lowest = rankGap - remainingRank[d] + 2 * lowestRankSum(d, (int) k);
+                long highest = rankGap + remainingRank[d] - 2 * lowestRankSum(d, (int) (remaining - k));
+                long closest = (lowest > 0) ? lowest : (highest < 0) ? -highest : 0;
+                joint = Math.min(joint,
+                        rankWeight * Math.max(0, closest - constraints.getRankSumWindow()) / 100.0);
+            }
+            cost = Math.max(cost, joint);
+        }
+
+        if (parityWeight > 0) {
+            cost += parityWeight * parityWrong;
+        }
+        return cost;
+    }
+
+    /* Rank sum of the k lowest ranked players of classes d and onward */
+    private long lowestRankSum(int d, int k) {
+        // The lowest ranked players are at the end, so find the first class from which on at most k players remain
+        int low = d;
+        int high = classes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (remainingCount[mid] <= k) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        long sum = remainingRank[low];
+        if (remainingCount[low] < k) {
+            sum += (long) (k - remainingCount[low]) * classes[low - 1].rank;
+        }
+        return sum;
+    }
+
+    /* Smallest count difference violation reachable by placing the remaining players either side */
+    private long countViolation(long gap, long remaining) {
+        long abs = Math.abs(gap);
+        long closest = (abs <= remaining) ? (abs + remaining) % 2 : abs - remaining;
+        return Math.max(0, closest - constraints.getMaximumCountDifference());
+    }
+
+    /* Smallest rank sum window violation reachable, in units of 100 rank points */
+    private double rankViolation(long gap, long remaining) {
+        long abs = Math.abs(gap);
+        long closest = (abs <= remaining) ? 0 : abs - remaining;
+        return Math.max(0, closest - constraints.getRankSumWindow()) / 100.0;
+    }
+
+    /* Check a bound against the best arrangement, breaking cost ties on the number of moves */
+    private boolean beatsBest(double bound, int d) {
+        return bound < bestCost - EPSILON || (bound <= bestCost + EPSILON && fewestMoves(d) < bestMoves);
+    }
+
+    /*
+     * Fewest moves any arrangement of classes d and onward can make in total while tying the best cost. A cost of 0
+     * leaves no count difference or wrong parity, and the undecided classes can only fix those by moving players.
+     */
+    private int fewestMoves(int d) {
+        if (bestCost > EPSILON) {
+            return moves;
+        }
+        long countMoves = 0;
+        if (countWeight > 0) {
+            long stayGap = Math.abs(leftCount - rightCount + remainingStayGap[d]);
+            countMoves = Math.max(0, (stayGap - constraints.getMaximumCountDifference() + 1) / 2);
+        }
+        int parityMoves = (parityWeight > 0) ? remainingWrong[d] : 0;
+        return moves + (int) Math.max(countMoves, parityMoves);
+    }
+
+    /* Keep the current, complete, arrangement as the best */
+    private void record() {
+        best = value.clone();
+        bestCost = lowerBound(classes.length);
+        bestMoves = moves;
+        bestParityWrong = parityWrong;
+    }
+
+    /* Move players as the best arrangement says, returning true if any player moved */
+    private boolean apply() {
+        List<String> leftToRight = new ArrayList<String>();
+        List<String> rightToLeft = new ArrayList<String>();
+        for (int d = 0; d < classes.length; d++) {
+            PlayerClass k = classes[d];
+            if (k.side == LEFT) {
+                leftToRight.addAll(k.names.subList(best[d], k.names.size()));
+            } else {
+                rightToLeft.addAll(k.names.subList(0, best[d]));
+            }
+        }
+
+        // Players leaving the right roster must free their groups before anyone is seated there, so the players
+        // leaving the left roster wait in a scratch roster, where no rules apply and their groups stay as they are
+        boolean parity = parityWeight > 0;
+        Roster leaving = new Roster(left.getPool());
+        left.moveAllTo(leftToRight, leaving, Rules.NoRules);
+        right.moveAllTo(rightToLeft, left, rules, parity ? Roster.GroupParity.EVEN : null);
+        leaving.moveAllTo(leftToRight, right, rules, parity ? Roster.GroupParity.ODD : null);
+        if (parity) {
+            for (int i = 0; i < left.size(); i++) {
+                left.updateGroup(left.get(i), rules, Roster.GroupParity.EVEN);
+            }
+            for (int i = 0; i < right.size(); i++) {
+                right.updateGroup(right.get(i), rules, Roster.GroupParity.ODD);
+            }
+        }
+        return !leftToRight.isEmpty() || !rightToLeft.isEmpty();
+    }
+
+    /* Fill in the status of each weighted constraint and pick the overall status */
+    private Status report(boolean moved) {
+        Status met = moved ? Status.SUCCESS : Status.ALREADY_ARRANGED;
+        for (Constraints.Constraint c : Constraints.Constraint.values()) {
+            if (!constraints.isEnabled(c)) {
+                continue;
+            }
+            switch (c) {
+                case COUNT_DIFFERENCE:
+                    boolean countMet = Math.abs(left.size() - right.size()) <= constraints.getMaximumCountDifference();
+                    boolean countPossible = countViolation(excludedCountGap, remainingCount[0]) == 0;
+                    statuses.put(c, countMet ? met
+                            : countPossible ? Status.CONSTRAINTS_CONFLICT : Status.TOO_MANY_EXCLUSIONS);
+                    break;
+
+                case RANK_SUM_WINDOW:
+                    boolean rankMet = Math.abs(left.rankSum() - right.rankSum()) <= constraints.getRankSumWindow();
+                    statuses.put(c, rankMet ? met
+                            : rankWindowPossible() ? Status.CONSTRAINTS_CONFLICT : Status.RANKS_TOO_LOPSIDED);
+                    break;
+
+                case GROUP_PARITY:
+                default:
+                    statuses.put(c, bestParityWrong == 0 ? met : Status.CONSTRAINTS_CONFLICT);
+                    break;
+            }
+        }
+
+        Status overall = met;
+        double heaviest = -1;
+        for (Constraints.Constraint c : statuses.keySet()) {
+            Status s = statuses.get(c);
+            if (s != met && constraints.getWeight(c) > heaviest) {
+                overall = s;
+                heaviest = constraints.getWeight(c);
+            }
+        }
+        return overall;
+    }
+
+    /*
+     * Whether any placement of the movable players, regardless of the other constraints, brings the rank sums
+     * within the window: some movable players must add up to a left roster share in the range the window allows.
+     * The sums the players can add up to are tabulated exactly up to SUBSET_SUM_LIMIT rank points; beyond that,
+     * the range only has to lie within the total movable rank.
+     */
+    private boolean rankWindowPossible() {
+        long total = remainingRank[0];
+        long window = constraints.getRankSumWindow();
+        long low = Math.max(0, -Math.floorDiv(-(total - excludedRankGap - window), 2));
+        long high = Math.min(total, Math.floorDiv(total - excludedRankGap + window, 2));
+        if (low > high) {
+            return false;
+        }
+        if (total > SUBSET_SUM_LIMIT) {
+            return true;
+        }
+
+        // Bit s is set if some players add up to s. Each rank is added in doubling batches of its players.
+        long[] sums = new long[(int) (total >>> 6) + 1];
+        sums[0] = 1;
+        for (int rank = 1; rank <= 100; rank++) {
+            int players = 0;
+            if (classesByRank[rank] != null) {
+                for (int d : classesByRank[rank]) {
+                    players += classes[d].names.size();
+                }
+            }
+            for (int batch = 1; players > 0; batch <<= 1) {
+                int taken = Math.min(batch, players);
+                orShifted(sums, (long) taken * rank);
+                players -= taken;
+            }
+        }
+        for (long sum = low; sum <= high; sum++) {
+            if ((sums[(int) (sum >>> 6)] & (1L << sum)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* Set every bit that is set shift bits lower */
+    private static void orShifted(long[] bits, long shift) {
+        int words = (int) (shift >>> 6);
+        int offset = (int) (shift & 63);
+        for (int i = bits.length - 1; i >= words; i--) {
+            long moved = bits[i - words] << offset;
+            if (offset != 0 && i - words - 1 >= 0) {
+                moved |= bits[i - words - 1] >>> (64 - offset);
+            }
+            bits[i] |= moved;
+        }
+    }
+
+    /* Limit a value to 0..c */
+    private static int clamp(int v, int c) {
+        return Math.max(0, Math.min(c, v));
+    }
+}
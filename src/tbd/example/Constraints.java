@@ -0,0 +1,127 @@
+package tbd.example;
+
+import java.util.EnumMap;
+
+/**
+ * Weighted set of constraints for the COMBINED policy of the PolicyEnforcer.
+ *
+ * The COMBINED policy searches for the arrangement with the lowest total cost, where the cost of each constraint
+ * is its weight times how far the arrangement is from meeting it. A constraint with a weight of 0 is ignored.
+ * By default every constraint has a weight of 1.
+ *
+ * + COUNT_DIFFERENCE - player counts no more than getMaximumCountDifference() apart, default 2. Measured in players.
+ *
+ * + RANK_SUM_WINDOW - rank sums no more than getRankSumWindow() apart, default 90. Measured in units of 100 rank
+ * points, the rank of one top player, so that it weighs about the same as a player of count difference.
+ *
+ * + GROUP_PARITY - even numbered groups in the left roster and odd numbered groups in the right, as for BY_GROUP.
+ * Measured in movable players left on the wrong side. Players on the wrong side have their group numbers changed
+ * to the right parity once the arrangement is chosen.
+ *
+ * The maximum group size is not weighted, since no arrangement can break it: as with the other policies, a player
+ * who would make a group too big is given another group number.
+ *
+ * Excluded players are never moved, regardless of the weights, since every policy must respect the Rules.
+ *
+ * @see PolicyEnforcer
+ * @see Rules
+ */
+public class Constraints {
+
+    /**
+     * Constraints that can be weighted.
+     */
+    public enum Constraint {
+        COUNT_DIFFERENCE,
+        RANK_SUM_WINDOW,
+        GROUP_PARITY
+    }
+
+    private EnumMap<Constraint, Double> weights;
+    private int maximumCountDifference;
+    private int rankSumWindow;
+    private long timeBudgetMillis;
+
+    public Constraints() {
+        weights = new EnumMap<Constraint, Double>(Constraint.class);
+        for (Constraint c : Constraint.values()) {
+            weights.put(c, 1.0);
+        }
+        maximumCountDifference = 2;
+        rankSumWindow = PolicyEnforcer.RANK_WINDOW;
+        timeBudgetMillis = 100;
+    }
+
+    /** */
+    public double getWeight(Constraint constraint) {
+        return weights.get(constraint);
+    }
+
+    /**
+     * Set the weight of a constraint.
+     *
+     * @param constraint Constraint to weigh.
+     * @param weight Weight of the constraint, 0 to ignore it.
+     * @throws IllegalArgumentException If weight is negative or not a number.
+     */
+    public void setWeight(Constraint constraint, double weight) throws IllegalArgumentException {
+        if (!(weight >= 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Bad weight");
+        }
+        weights.put(constraint, weight);
+    }
+
+    /**
+     * Check if a constraint takes part in the search.
+     *
+     * @param constraint Constraint to check.
+     * @return True if the weight of the constraint is greater than 0.
+     */
+    public boolean isEnabled(Constraint constraint) {
+        return weights.get(constraint) > 0;
+    }
+
+    /** */
+    public int getMaximumCountDifference() {
+        return maximumCountDifference;
+    }
+
+    /** */
+    public void setMaximumCountDifference(int difference) throws IllegalArgumentException {
+        if (difference < 0) {
+            throw new IllegalArgumentException("difference is < 0");
+        }
+        maximumCountDifference = difference;
+    }
+
+    /** */
+    public int getRankSumWindow() {
+        return rankSumWindow;
+    }
+
+    /** */
+    public void setRankSumWindow(int window) throws IllegalArgumentException {
+        if (window < 0) {
+            throw new IllegalArgumentException("window is < 0");
+        }
+        rankSumWindow = window;
+    }
+
+    /** */
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    /**
+     * Set how long the search may run. When the budget runs out, the best arrangement found so far is used.
+     *
+     * @param millis Time budget in milliseconds, must be greater than 0.
+     * @throws IllegalArgumentException If millis is not greater than 0.
+     */
+    public void setTimeBudgetMillis(long millis) throws IllegalArgumentException {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("millis is not > 0");
+        }
+        timeBudgetMillis = millis;
+    }
+}
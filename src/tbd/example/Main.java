@@ -20,13 +20,10 @@ The leftness or rightness is not relevant to the exercise, they could have been
 
 The Exercise function begins by initializing the starting roster pair. It then initializes the rules
 to be used for this exercise. Finally, it arranges the rosters by each of the three policies, one
-after the other, writing the results to System.out.
+after the other, writing the results to System.out through a ReportWriter.
 */
 
 public class Main {
-    private static int LeftRankSum = 0;
-    private static int RightRankSum = 0;
-
     public static void main(String[] args) {
         try {
             Exercise();
@@ -36,7 +33,15 @@ public class Main {
     }
 
     public static void Exercise() {
-        System.out.println("START OF POLICY ENFORCED ARRANGEMENTS\n");
+        try (ReportWriter out = ReportWriter.Stdout(ReportWriter.Format.TEXT)) {
+            Exercise(out);
+        }
+    }
+
+    /* The exercise proper, writing through a buffered report writer that is flushed even on failure */
+    private static void Exercise(ReportWriter out) {
+        out.line("START OF POLICY ENFORCED ARRANGEMENTS");
+        out.line("");
         // Initialization
         Rules myRules = new Rules(); // Don't define excluded players yet, do that after building initial rosters
         // Create initial rosters
@@ -68,33 +73,15 @@ public class Main {
         excluded.forEach((vip) -> myRules.addExcludedName(vip));
 
         // Write out the original rosters
-        System.out.println("ORIGINAL LEFT");
-        left.sortByName();
-        left.counter = 1;
-        left.stream()
-            .forEach((name) -> {
-                Player l = Player.LookupByName(name);
-                System.out.printf("%d. Name: %s, Group: %d, Rank: %d%n",
-                        left.counter++, l.name, l.group, l.rank);
-        });
-
-        System.out.println("ORIGINAL RIGHT");
-        right.sortByName();
-        right.counter = 1;
-        right.stream()
-             .forEach((name) -> {
-                Player r = Player.LookupByName(name);
-                System.out.printf("%d. Name: %s, Group: %d, Rank: %d%n",
-                        right.counter++, r.name, r.group, r.rank);
-        });
+        out.roster("ORIGINAL LEFT", left);
+        out.roster("ORIGINAL RIGHT", right);
 
         // Write out the rules
-        System.out.println("RULES");
-        System.out.printf("Maximum group size: %d%n", myRules.getMaximumGroup());
-        System.out.print("Excluded: ");
-        System.out.println(excluded.stream().collect(Collectors.joining(", ")));
+        out.line("RULES");
+        out.line("Maximum group size: " + myRules.getMaximumGroup());
+        out.line("Excluded: " + excluded.stream().collect(Collectors.joining(", ")));
 
-        System.out.println("-----");
+        out.line("-----");
 
         /* Apply BY_NUMBER policy first */
 
@@ -106,35 +93,19 @@ public class Main {
         PolicyEnforcer byNumberEnforcer = new PolicyEnforcer(PolicyEnforcer.Policy.BY_NUMBER, myRules, left1, right1);
 
         // Arrange by number
-        System.out.printf("%nBY_NUMBER%n");
+        out.line("");
+        out.line("BY_NUMBER");
         Status status = byNumberEnforcer.arrange();
-        System.out.println("Status: " + status);
+        out.line("Status: " + status);
 
-        System.out.println("-----");
+        out.line("-----");
 
         // Write output
         final Roster leftByNumber = byNumberEnforcer.getLeftRosterFinal();
         final Roster rightByNumber = byNumberEnforcer.getRightRosterFinal();
 
-        System.out.println("LEFT");
-        leftByNumber.sortByName();
-        leftByNumber.counter = 1;
-        leftByNumber.stream()
-                    .forEach((name) -> {
-                        Player l = Player.LookupByName(name);
-                        System.out.printf("%d. Name: %s, Group: %d, Rank: %d%n",
-                                leftByNumber.counter++, l.name, l.group, l.rank);
-                    });
-
-        System.out.println("RIGHT");
-        rightByNumber.sortByName();
-        rightByNumber.counter = 1;
-        rightByNumber.stream()
-                     .forEach((name) -> {
-                        Player r = Player.LookupByName(name);
-                        System.out.printf("%d. Name: %s, Group: %d, Rank: %d%n",
-                                rightByNumber.counter++, r.name, r.group, r.rank);
-                     });
+        out.roster("LEFT", leftByNumber);
+        out.roster("RIGHT", rightByNumber);
 
         /* Apply BY_RANK policy next */
 
@@ -146,40 +117,22 @@ public class Main {
         PolicyEnforcer byRankEnforcer = new PolicyEnforcer(PolicyEnforcer.Policy.BY_RANK, myRules, left2, right2);
 
         // Arrange by rank
-        System.out.printf("%nBY_RANK%n");
+        out.line("");
+        out.line("BY_RANK");
         status = byRankEnforcer.arrange();
-        System.out.println("Status: " + status);
+        out.line("Status: " + status);
 
-        System.out.println("-----");
+        out.line("-----");
 
         // Write output
         final Roster leftByRank = byRankEnforcer.getLeftRosterFinal();
         final Roster rightByRank = byRankEnforcer.getRightRosterFinal();
 
-        System.out.println("LEFT");
-        leftByRank.sortByName();
-        leftByRank.counter = 1;
-        leftByRank.stream()
-                  .forEach((name) -> {
-                        Player l = Player.LookupByName(name);
-                        System.out.printf("%d. Name: %s, Group: %d, Rank: %d%n",
-                                leftByRank.counter++, l.name, l.group, l.rank);
-                        LeftRankSum += l.rank;
-                  });
-
-        System.out.println("RIGHT");
-        rightByRank.sortByName();
-        rightByRank.counter = 1;
-        rightByRank.stream()
-                   .forEach((name) -> {
-                        Player r = Player.LookupByName(name);
-                        System.out.printf("%d. Name: %s, Group: %d, Rank: %d%n",
-                                rightByRank.counter++, r.name, r.group, r.rank);
-                        RightRankSum += r.rank;
-                   });
+        out.roster("LEFT", leftByRank);
+        out.roster("RIGHT", rightByRank);
 
         // Final rank totals
-        System.out.printf("Rank sum totals: [%d/%d]%n", LeftRankSum, RightRankSum);
+        out.line("Rank sum totals: [" + leftByRank.rankSum() + "/" + rightByRank.rankSum() + "]");
 
         /* Apply BY_GROUP policy last */
 
@@ -191,34 +144,18 @@ public class Main {
         PolicyEnforcer byGroupEnforcer = new PolicyEnforcer(PolicyEnforcer.Policy.BY_GROUP, myRules, left3, right3);
 
         // Arrange by group
-        System.out.printf("%nBY_GROUP%n");
+        out.line("");
+        out.line("BY_GROUP");
         status = byGroupEnforcer.arrange();
-        System.out.println("Status: " + status);
+        out.line("Status: " + status);
 
-        System.out.println("-----");
+        out.line("-----");
 
         // Write output
         final Roster leftByGroup = byGroupEnforcer.getLeftRosterFinal();
         final Roster rightByGroup = byGroupEnforcer.getRightRosterFinal();
 
-        System.out.println("LEFT");
-        leftByGroup.sortByName();
-        leftByGroup.counter = 1;
-        leftByGroup.stream()
-                   .forEach((name) -> {
-                        Player l = Player.LookupByName(name);
-                        System.out.printf("%d. Name: %s, Group: %d, Rank: %d%n",
-                                leftByGroup.counter++, l.name, l.group, l.rank);
-                   });
-
-        System.out.println("RIGHT");
-        rightByGroup.sortByName();
-        rightByGroup.counter = 1;
-        rightByGroup.stream()
-                    .forEach((name) -> {
-                        Player r = Player.LookupByName(name);
-                        System.out.printf("%d. Name: %s, Group: %d, Rank: %d%n",
-                                rightByGroup.counter++, r.name, r.group, r.rank);
-                    });
+        out.roster("LEFT", leftByGroup);
+        out.roster("RIGHT", rightByGroup);
     }
 }
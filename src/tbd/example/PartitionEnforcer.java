@@ -0,0 +1,518 @@
+package tbd.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Arrange any number of rosters according to a specified policy. This is the PolicyEnforcer for more than a pair
+ * of rosters, such as a league of 8 to 64 teams.
+ *
+ * For all policies, excluded players must not be moved from their original rosters.
+ *
+ * BY_NUMBER - make the player counts of all rosters within 1 of each other.
+ *
+ * BY_RANK - make the rank sums of every pair of rosters within 90 inclusive of each other, while also ensuring
+ * that the player counts of every pair of rosters are within 2 of each other.
+ *
+ * BY_GROUP - move every player of group g to roster number g modulo the number of rosters, counting rosters from
+ * 0. With two rosters this is the BY_GROUP policy of the PolicyEnforcer: even groups to the first roster, odd groups
+ * to the second. When the maximum group size rule bumps a group number, it is bumped by the number of rosters, so
+ * that it still maps to the roster the player is in.
+ *
+ * COMBINED is not supported.
+ *
+ * BY_NUMBER fills the shortest rosters first, taken from a heap of rosters ordered by player count. BY_RANK starts
+ * from the current placement: it evens out the counts, each time moving the rank that best closes the gap between
+ * the heaviest roster with too many players and the lightest with too few, then moves or swaps players between the
+ * heaviest and the lightest roster until every rank sum is within the window. When no move or swap narrows their
+ * gap, it splits the movable players of those two afresh with the exact search of RankSplit. With two rosters,
+ * RANKS_TOO_LOPSIDED therefore means there is no arrangement; with more, only that none was found. Only the players
+ * that need to move are moved, in bulk, one batch out of and one batch into each roster. If arrange() fails, the
+ * final rosters are left as copies of the originals.
+ *
+ * Like the PolicyEnforcer, this class works in the player pool of its rosters, so all of them must be bound to the
+ * same pool, and the rules to that pool or to no pool.
+ *
+ * @see PolicyEnforcer
+ */
+public class PartitionEnforcer {
+    private PolicyEnforcer.Policy policy;
+    private PlayerPool pool;
+    private List<Roster> rostersOriginal;
+    private List<Roster> rostersFinal;
+    private Rules rules;
+
+    /**
+     * Construct an enforcer for a specific policy and a specific list of rosters.
+     *
+     * @param aPolicy Policy to use to arrange the rosters. Must not be COMBINED.
+     * @param someRules Rules to be applied during this arrangement, kept as a frozen snapshot.
+     * @param originals At least 2 distinct, non-null rosters, which may be empty. Ownership of the rosters is adopted
+     *                  by this class.
+     * @throws IllegalArgumentException If any argument is illegal, such as there being fewer than 2 rosters, or the
+     *                                  rosters and rules being bound to different player pools.
+     */
+    public PartitionEnforcer(PolicyEnforcer.Policy aPolicy, Rules someRules, List<Roster> originals)
+            throws IllegalArgumentException {
+
+        // sanity checks
+        if (aPolicy == PolicyEnforcer.Policy.COMBINED) {
+            throw new IllegalArgumentException("COMBINED is only supported for a pair of rosters");
+        }
+        if (someRules.getMaximumGroup() < 0) {
+            throw new IllegalArgumentException("someRules.getMaximumGroup() is < 0");
+        }
+        if (originals.size() < 2) {
+            throw new IllegalArgumentException("originals.size() is < 2");
+        }
+        IdentityHashMap<Roster, Boolean> seen = new IdentityHashMap<Roster, Boolean>();
+        for (Roster roster : originals) {
+            if (roster == null) {
+                throw new IllegalArgumentException("A roster is null");
+            }
+            if (seen.put(roster, Boolean.TRUE) != null) {
+                throw new IllegalArgumentException("A roster appears more than once");
+            }
+            if (roster.getPool() != originals.get(0).getPool()) {
+                throw new IllegalArgumentException("Rosters are bound to different player pools");
+            }
+        }
+        if (someRules.getPool() != null && someRules.getPool() != originals.get(0).getPool()) {
+            throw new IllegalArgumentException("Rules are bound to another player pool");
+        }
+        policy = aPolicy;
+        pool = originals.get(0).getPool();
+        rules = someRules.compile();
+        rostersOriginal = new ArrayList<Roster>(originals);
+        rostersFinal = Collections.emptyList();
+    }
+
+    /**
+     * Player pool getter.
+     *
+     * @return The pool of the rosters.
+     */
+    public PlayerPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Results getter.
+     *
+     * @return Unmodifiable list of the arranged rosters, in the order of the original rosters. Empty before arrange.
+     */
+    public List<Roster> getRostersFinal() {
+        return Collections.unmodifiableList(rostersFinal);
+    }
+
+    /**
+     * Result getter.
+     *
+     * @param i Index of the roster, in the order of the original rosters.
+     * @return The arranged roster.
+     * @throws IndexOutOfBoundsException If i is out of range, or arrange has not been called.
+     */
+    public Roster getRosterFinal(int i) {
+        return rostersFinal.get(i);
+    }
+
+    /**
+     * Arrange rosters according to policy. After the method returns, use getRostersFinal to access the arranged
+     * rosters.
+     *
+     * @return Status of the arrangement
+     * @see Status
+     */
+    public Status arrange() {
+        initFinal();
+        switch (policy) {
+            case BY_GROUP:
+                return arrangeByGroup();
+
+            case BY_RANK:
+                return arrangeByRank();
+
+            case BY_NUMBER:
+            default:
+                return arrangeByNumber();
+        }
+    }
+
+    /* Utility method: copy the original rosters into the final rosters, which all arrangement work is done on */
+    private void initFinal() {
+        rostersFinal = new ArrayList<Roster>(rostersOriginal.size());
+        for (Roster original : rostersOriginal) {
+            Roster copy = new Roster(pool);
+            copy.addAll(original, Rules.NoRules);
+            copy.trackExclusions(rules);
+            rostersFinal.add(copy);
+        }
+    }
+
+    /* See class comment for BY_NUMBER implementation requirements */
+    private Status arrangeByNumber() {
+        if (countSpread() <= 1) {
+            return Status.ALREADY_ARRANGED;
+        }
+        int[] targets = targetCounts(1);
+        if (targets == null) {
+            return Status.TOO_MANY_EXCLUSIONS;
+        }
+
+        // Rosters short of their target, emptiest first, are filled in batches from the surplus of the others
+        PriorityQueue<Integer> shortest = new PriorityQueue<Integer>(
+                (a, b) -> Integer.compare(rostersFinal.get(a).size(), rostersFinal.get(b).size()));
+        for (int i = 0; i < targets.length; i++) {
+            if (rostersFinal.get(i).size() < targets[i]) {
+                shortest.add(i);
+            }
+        }
+        for (int i = 0; i < targets.length; i++) {
+            Roster from = rostersFinal.get(i);
+            if (from.size() <= targets[i]) {
+                continue;
+            }
+            List<String> surplus = from.movablePlayers().subList(0, from.size() - targets[i]);
+            int taken = 0;
+            while (taken < surplus.size()) {
+                int r = shortest.poll();
+                Roster to = rostersFinal.get(r);
+                int batch = Math.min(targets[r] - to.size(), surplus.size() - taken);
+                from.moveAllTo(surplus.subList(taken, taken + batch), to, rules);
+                taken += batch;
+                if (to.size() < targets[r]) {
+                    shortest.add(r);
+                }
+            }
+        }
+
+        return Status.SUCCESS;
+    }
+
+    /* See class comment for BY_RANK implementation requirements */
+    private Status arrangeByRank() {
+        if (countSpread() <= 2 && rankSpread() <= PolicyEnforcer.RANK_WINDOW) {
+            return Status.ALREADY_ARRANGED;
+        }
+        int[] targets = targetCounts(2);
+        if (targets == null) {
+            return Status.TOO_MANY_EXCLUSIONS;
+        }
+
+        // Work on rank sums, counts and buckets of movable players, so nothing moves unless the arrangement succeeds
+        int k = rostersFinal.size();
+        long[] sums = new long[k];
+        int[] sizes = new int[k];
+        @SuppressWarnings("unchecked")
+        RankBuckets<Placement>[] placed = (RankBuckets<Placement>[]) new RankBuckets<?>[k];
+        for (int i = 0; i < k; i++) {
+            Roster roster = rostersFinal.get(i);
+            sums[i] = roster.rankSum();
+            sizes[i] = roster.size();
+            placed[i] = new RankBuckets<Placement>();
+            final int from = i;
+            roster.forEachIndexed((index, name, rank, group) -> {
+                if (!rules.isNameExcluded(name)) {
+                    placed[from].put(rank, new Placement(name, from));
+                }
+            });
+        }
+        List<Placement> moved = new ArrayList<Placement>();
+
+        // First even out the counts, from the heaviest roster with too many players to the lightest with too few
+        PriorityQueue<Integer> heaviestLong = new PriorityQueue<Integer>((a, b) -> Long.compare(sums[b], sums[a]));
+        PriorityQueue<Integer> lightestShort = new PriorityQueue<Integer>((a, b) -> Long.compare(sums[a], sums[b]));
+        for (int i = 0; i < k; i++) {
+            if (sizes[i] > targets[i]) {
+                heaviestLong.add(i);
+            } else if (sizes[i] < targets[i]) {
+                lightestShort.add(i);
+            }
+        }
+        while (!heaviestLong.isEmpty()) {
+            int from = heaviestLong.poll();
+            int to = lightestShort.poll();
+            move(placed, sums, sizes, moved, placed[from].closest((sums[from] - sums[to]) / 2.0), from, to);
+            if (sizes[from] > targets[from]) {
+                heaviestLong.add(from);
+            }
+            if (sizes[to] < targets[to]) {
+                lightestShort.add(to);
+            }
+        }
+
+        // Then move or swap between the heaviest and the lightest roster. Each step narrows their gap without
+        // widening any other, so the sum of squared rank sums falls every step and the loop ends. If no step
+        // narrows it, the movable players of the two are split afresh, which settles every gap or gives up.
+        while (true) {
+            int heavy = 0;
+            int light = 0;
+            int fewest = Integer.MAX_VALUE;
+            int most = Integer.MIN_VALUE;
+            for (int i = 0; i < k; i++) {
+                heavy = (sums[i] > sums[heavy]) ? i : heavy;
+                light = (sums[i] < sums[light]) ? i : light;
+                fewest = Math.min(fewest, sizes[i]);
+                most = Math.max(most, sizes[i]);
+            }
+            long gap = sums[heavy] - sums[light];
+            if (gap <= PolicyEnforcer.RANK_WINDOW) {
+                break;
+            }
+
+            // Best single move, allowed only while the counts stay within 2
+            int bestOut = 0;
+            int bestIn = 0;
+            long bestGap = gap;
+            if (Math.max(most, sizes[light] + 1) - Math.min(fewest, sizes[heavy] - 1) <= 2) {
+                for (int out = 1; out <= 100; out++) {
+                    if (placed[heavy].has(out) && Math.abs(gap - 2L * out) < bestGap) {
+                        bestOut = out;
+                        bestGap = Math.abs(gap - 2L * out);
+                    }
+                }
+            }
+            // Best swap, which leaves the counts alone
+            for (int out = 2; out <= 100; out++) {
+                if (!placed[heavy].has(out)) {
+                    continue;
+                }
+                for (int in = 1; in < out; in++) {
+                    if (placed[light].has(in) && Math.abs(gap - 2L * (out - in)) < bestGap) {
+                        bestOut = out;
+                        bestIn = in;
+                        bestGap = Math.abs(gap - 2L * (out - in));
+                    }
+                }
+            }
+
+            if (bestOut == 0) {
+                if (!splitByRank(placed, sums, sizes, moved, heavy, light)) {
+                    return Status.RANKS_TOO_LOPSIDED;
+                }
+                break;
+            }
+            move(placed, sums, sizes, moved, bestOut, heavy, light);
+            if (bestIn != 0) {
+                move(placed, sums, sizes, moved, bestIn, light, heavy);
+            }
+        }
+
+        // Carry out the moves as one batch out of and one batch into each roster
+        List<List<String>> leaving = newLists(k);
+        List<List<String>> arriving = newLists(k);
+        for (Placement placement : moved) {
+            if (placement.at != placement.from) {
+                leaving.get(placement.from).add(placement.name);
+                arriving.get(placement.at).add(placement.name);
+            }
+        }
+        Roster scratch = park(leaving);
+        for (int r = 0; r < k; r++) {
+            scratch.moveAllTo(arriving.get(r), rostersFinal.get(r), rules);
+        }
+
+        return Status.SUCCESS;
+    }
+
+    /*
+     * Utility method: choose afresh how many movable players of each rank the heavy roster holds, by an exact
+     * search over the movable players of the heavy and the light roster, so that the two end up within the count
+     * spread and the rank window of each other and of every other roster, and move the difference. False if the
+     * search finds no such choice. With two rosters that proves there is no arrangement; with more, the other
+     * rosters narrow the range of rank sums, so an arrangement may be missed.
+     */
+    private static boolean splitByRank(RankBuckets<Placement>[] placed, long[] sums, int[] sizes,
+            List<Placement> moved, int heavy, int light) {
+        int players = sizes[heavy] + sizes[light];
+        long rankSum = sums[heavy] + sums[light];
+        int fewest = -Math.floorDiv(-(players - 2), 2);
+        int most = Math.floorDiv(players + 2, 2);
+        long lowest = -Math.floorDiv(-(rankSum - PolicyEnforcer.RANK_WINDOW), 2);
+        long highest = Math.floorDiv(rankSum + PolicyEnforcer.RANK_WINDOW, 2);
+        for (int i = 0; i < sizes.length; i++) {
+            if (i != heavy && i != light) {
+                fewest = Math.max(fewest, Math.max(sizes[i] - 2, players - sizes[i] - 2));
+                most = Math.min(most, Math.min(sizes[i] + 2, players - sizes[i] + 2));
+                lowest = Math.max(lowest, Math.max(sums[i], rankSum - sums[i]) - PolicyEnforcer.RANK_WINDOW);
+                highest = Math.min(highest, Math.min(sums[i], rankSum - sums[i]) + PolicyEnforcer.RANK_WINDOW);
+            }
+        }
+
+        // The heavy roster's excluded players stay, so the search covers only what is left of its count and sum
+        int[] movable = new int[101];
+        int excludedCount = sizes[heavy];
+        long excludedRankSum = sums[heavy];
+        for (int rank = 1; rank <= 100; rank++) {
+            movable[rank] = placed[heavy].count(rank) + placed[light].count(rank);
+            excludedCount -= placed[heavy].count(rank);
+            excludedRankSum -= (long) rank * placed[heavy].count(rank);
+        }
+        int[] chosen = RankSplit.choose(movable, fewest - excludedCount, most - excludedCount,
+                lowest - excludedRankSum, highest - excludedRankSum);
+        if (chosen == null) {
+            return false;
+        }
+
+        for (int rank = 1; rank <= 100; rank++) {
+            for (int i = placed[heavy].count(rank); i > chosen[rank]; i--) {
+                move(placed, sums, sizes, moved, rank, heavy, light);
+            }
+            for (int i = placed[heavy].count(rank); i < chosen[rank]; i++) {
+                move(placed, sums, sizes, moved, rank, light, heavy);
+            }
+        }
+        return true;
+    }
+
+    /* Utility method: move a player of the specified rank between the working buckets of two rosters */
+    private static void move(RankBuckets<Placement>[] placed, long[] sums, int[] sizes, List<Placement> moved,
+            int rank, int from, int to) {
+        Placement placement = placed[from].take(rank);
+        placed[to].put(rank, placement);
+        sums[from] -= rank;
+        sums[to] += rank;
+        sizes[from]--;
+        sizes[to]++;
+        if (!placement.moved) {
+            placement.moved = true;
+            moved.add(placement);
+        }
+        placement.at = to;
+    }
+
+    /* See class comment for BY_GROUP implementation requirements */
+    private Status arrangeByGroup() {
+        int k = rostersFinal.size();
+
+        // Move every movable player in the wrong roster, then settle group numbers in each roster
+        List<List<String>> leaving = newLists(k);
+        List<List<String>> arriving = newLists(k);
+        for (int i = 0; i < k; i++) {
+            final int from = i;
+            rostersFinal.get(i).forEachIndexed((index, name, rank, group) -> {
+                int to = group % k;
+                if (to != from && !rules.isNameExcluded(name)) {
+                    leaving.get(from).add(name);
+                    arriving.get(to).add(name);
+                }
+            });
+        }
+        Roster scratch = park(leaving);
+        for (int r = 0; r < k; r++) {
+            scratch.moveAllTo(arriving.get(r), rostersFinal.get(r), rules, k, r);
+        }
+        for (int r = 0; r < k; r++) {
+            Roster roster = rostersFinal.get(r);
+            for (int i = 0; i < roster.size(); i++) {
+                roster.updateGroup(roster.get(i), rules, k, r);
+            }
+        }
+
+        return Status.SUCCESS;
+    }
+
+    /*
+     * Utility method: take the leaving players out of every roster before anyone is seated, so that they free their
+     * groups first. They wait in a scratch roster, where no rules apply and their groups stay as they are.
+     */
+    private Roster park(List<List<String>> leaving) {
+        Roster scratch = new Roster(pool);
+        for (int i = 0; i < leaving.size(); i++) {
+            rostersFinal.get(i).moveAllTo(leaving.get(i), scratch, Rules.NoRules);
+        }
+        return scratch;
+    }
+
+    /*
+     * Utility method: a player count for every roster such that the counts are within spread of each other, every
+     * roster keeps its excluded players, and as few players as possible have to move. Null if there is no such
+     * set of counts.
+     */
+    private int[] targetCounts(int spread) {
+        int k = rostersFinal.size();
+        int total = 0;
+        int mostExcluded = 0;
+        for (Roster roster : rostersFinal) {
+            total += roster.size();
+            mostExcluded = Math.max(mostExcluded, roster.size() - roster.movableCount());
+        }
+
+        // The lowest count that leaves room for everyone and for every roster's excluded players
+        int low = Math.max(0, Math.max((total + k - 1) / k - spread, mostExcluded - spread));
+        int high = low + spread;
+        int[] targets = new int[k];
+        int remaining = total;
+        for (int i = 0; i < k; i++) {
+            Roster roster = rostersFinal.get(i);
+            targets[i] = Math.max(low, roster.size() - roster.movableCount());
+            remaining -= targets[i];
+        }
+        if (remaining < 0) {
+            return null;
+        }
+
+        // Hand out the rest, first to rosters that already hold the players, then to anyone with room
+        for (int pass = 0; pass < 2 && remaining > 0; pass++) {
+            for (int i = 0; i < k && remaining > 0; i++) {
+                int cap = (pass == 0) ? Math.min(rostersFinal.get(i).size(), high) : high;
+                int add = Math.min(remaining, cap - targets[i]);
+                if (add > 0) {
+                    targets[i] += add;
+                    remaining -= add;
+                }
+            }
+        }
+        return targets;
+    }
+
+    /* Utility method: difference between the largest and the smallest player count */
+    private int countSpread() {
+        int lowest = Integer.MAX_VALUE;
+        int highest = Integer.MIN_VALUE;
+        for (Roster roster : rostersFinal) {
+            lowest = Math.min(lowest, roster.size());
+            highest = Math.max(highest, roster.size());
+        }
+        return highest - lowest;
+    }
+
+    /* Utility method: difference between the largest and the smallest rank sum */
+    private long rankSpread() {
+        long lowest = Long.MAX_VALUE;
+        long highest = Long.MIN_VALUE;
+        for (Roster roster : rostersFinal) {
+            lowest = Math.min(lowest, roster.rankSum());
+            highest = Math.max(highest, roster.rankSum());
+        }
+        return highest - lowest;
+    }
+
+    /* Utility method: k empty lists */
+    private static List<List<String>> newLists(int k) {
+        List<List<String>> lists = new ArrayList<List<String>>(k);
+        for (int i = 0; i < k; i++) {
+            lists.add(new ArrayList<String>());
+        }
+        return lists;
+    }
+
+    /*
+     * A movable player, the roster it started in, the roster it is placed in, and whether it has been moved.
+     */
+    private static class Placement {
+        final String name;
+        final int from;
+        int at;
+        boolean moved;
+
+        Placement(String name, int from) {
+            this.name = name;
+            this.from = from;
+            this.at = from;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package tbd.example;
 
-import java.util.HashMap;
+import java.util.List;
 
 /**
- * Player object. Holds the name, rank and group number of a player. Also manages the global
- * pool of all players, regardless of which roster they may be in.
+ * Player object. Holds the name, rank and group number of a player. The static methods of this class manage the
+ * default pool of players, regardless of which roster they may be in. Other pools are PlayerPool instances, with
+ * the same methods.
+ *
+ * Player objects never change. Every object made by Factory, including the replacements made by Replace, gets
+ * the next version number of its pool, so code holding on to a Player or to values copied from it can find out
+ * whether the pool has a newer object for the name, and ChangedSince lists the names that may need refreshing.
  */
 public class Player {
     // Fields
@@ -18,75 +23,74 @@ public class Player {
      * Group id number, 0 or greater
      */
     public final int group;
-
-    // Statics
-    private static HashMap<String, Player> Pool;
-
-
-    static {
-        Pool = new HashMap<String, Player>();
-    }
+    /**
+     * Version of this player object, 1 or greater. Higher than the version of every object made before it in its pool.
+     */
+    public final long version;
 
     /**
      * Full constructor
      */
-    protected Player(String aName, int aRank, int aGroup) {
+    protected Player(String aName, int aRank, int aGroup, long aVersion) {
         name = aName;
         rank = aRank;
         group = aGroup;
+        version = aVersion;
     }
 
     /**
-     * Use this factory to create a Player object.
+     * Use this factory to create a Player object in the default pool.
      *
-     * @param name The player's name, MUST be unique across all Rosters unless Nobody.
+     * @param name The player's name, MUST be unique within the default pool.
      * @param group Must be greater than or equal to 0
      * @param rank From 1 to 100 inclusive, with 100 being highest/best
      * @throws IllegalArgumentException If name, rank or group are illegal values.
+     * @see PlayerPool#create
      */
     public static Player Factory(String name, int group, int rank) throws IllegalArgumentException {
-        // sanity checks
-        if (name == null) {
-            throw new IllegalArgumentException("Name is null");
-        }
-        if (Pool.containsKey(name)) {
-            throw new IllegalArgumentException("Non-unique name");
-        }
-        if (rank < 1 || rank > 100) {
-            throw new IllegalArgumentException("Bad rank");
-        }
-        if (group < 0) {
-            throw new IllegalArgumentException("Bad group");
-        }
-
-        // Manufacture a player
-        Player p = new Player(name, rank, group);
-        Pool.put(name, p);
-        return p;
+        return PlayerPool.Default().create(name, group, rank);
     }
 
     /**
-     * Lookup the player object by name from the player pool.
+     * Lookup the player object by name from the default pool.
      *
      * @param name Name of the player to look up.
      * @return Player object.
      */
     public static Player LookupByName(String name) {
-        return Pool.get(name);
+        return PlayerPool.Default().lookupByName(name);
     }
 
     /**
-     * Replace the Player object with the specified name.
+     * Replace the Player object with the specified name in the default pool.
      *
      * @param name The name of the player whose object should be replaced.
      * @param rank The rank of the replacement player.
      * @param group The group number of the replacement player.
      */
     public static void Replace(String name, int rank, int group) {
-        // First we have to remove the player from the Pool
-        Pool.remove(name);
-        // Then we factory a replacement player, which automatically adds it to the pool
-        Factory(name, group, rank);
+        PlayerPool.Default().replace(name, rank, group);
+    }
+
+    /**
+     * Version of the most recently made player object in the default pool, or 0 if none has been made.
+     *
+     * @return Current version.
+     */
+    public static long CurrentVersion() {
+        return PlayerPool.Default().currentVersion();
+    }
+
+    /**
+     * Names of the players in the default pool whose objects were made or replaced after the specified version.
+     *
+     * @param version Version to compare against, usually an earlier result of CurrentVersion.
+     * @return Names in the order of their latest change, each name once.
+     * @throws IllegalArgumentException If version is negative or greater than the current version.
+     * @see PlayerPool#changedSince
+     */
+    public static List<String> ChangedSince(long version) throws IllegalArgumentException {
+        return PlayerPool.Default().changedSince(version);
     }
 
 
@@ -0,0 +1,243 @@
+package tbd.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A namespace of Player objects. Player names are unique within a pool, but any number of pools, such as one per
+ * league, may use the same names in one process.
+ *
+ * Rosters and Rules are bound to a pool when they are created, and a PolicyEnforcer or PartitionEnforcer works in
+ * the pool of its rosters. Code that does not care about pools uses the Default() pool, which is what the static
+ * methods of the Player class work on.
+ *
+ * A pool keeps every player until clear() drops all of them at once, so that the memory of a whole league is
+ * released in one step. Rosters bound to a cleared pool must not be used until their players are made again.
+ * The default pool is shared by unrelated code, so it cannot be cleared.
+ *
+ * A pool is not thread safe.
+ *
+ * @see Player
+ */
+public class PlayerPool {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private static final PlayerPool DEFAULT = new PlayerPool("default", DEFAULT_CAPACITY);
+
+    // Fields
+    private final String name;
+    private final int expectedPlayers;
+    private HashMap<String, Player> players;
+    /* Number of players the map was last sized for */
+    private int capacity;
+    /*
+     * Player objects made since the last clear, in version order. Objects that have since been replaced are
+     * dropped whenever they outnumber the current ones, so the history stays within twice the size of the pool.
+     */
+    private ArrayList<Player> history;
+    private long version;
+    private long versionBase;
+
+    /**
+     * Construct an empty pool.
+     *
+     * @param aName Name of the pool, for diagnostics.
+     * @param somePlayers Number of players the pool is expected to hold. The pool is sized for it up front, and
+     *                    again whenever it is cleared, but may grow beyond it.
+     * @throws IllegalArgumentException If somePlayers is negative.
+     */
+    public PlayerPool(String aName, int somePlayers) throws IllegalArgumentException {
+        if (somePlayers < 0) {
+            throw new IllegalArgumentException("somePlayers is < 0");
+        }
+        name = aName;
+        expectedPlayers = somePlayers;
+        players = newMap(somePlayers);
+        capacity = somePlayers;
+        history = new ArrayList<Player>(somePlayers);
+    }
+
+    /**
+     * The pool used by the static methods of the Player class, and by Rosters and Rules created without a pool.
+     *
+     * @return The default pool.
+     */
+    public static PlayerPool Default() {
+        return DEFAULT;
+    }
+
+    /** */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Number of players in the pool.
+     *
+     * @return Player count.
+     */
+    public int size() {
+        return players.size();
+    }
+
+    /**
+     * Make room for at least the specified number of players, so that filling the pool does not rehash. The
+     * players are rehashed only if the pool is not already sized for that many.
+     *
+     * @param somePlayers Total number of players the pool should hold without growing.
+     */
+    public void ensureCapacity(int somePlayers) {
+        if (somePlayers > capacity && somePlayers > players.size()) {
+            HashMap<String, Player> bigger = newMap(somePlayers);
+            bigger.putAll(players);
+            players = bigger;
+            capacity = somePlayers;
+            history.ensureCapacity(somePlayers);
+        }
+    }
+
+    /**
+     * Create a Player object in this pool. See Player.Factory.
+     *
+     * @param aName The player's name, MUST be unique within this pool.
+     * @param group Must be greater than or equal to 0
+     * @param rank From 1 to 100 inclusive, with 100 being highest/best
+     * @return The new Player object.
+     * @throws IllegalArgumentException If name, rank or group are illegal values.
+     */
+    public Player create(String aName, int group, int rank) throws IllegalArgumentException {
+        // sanity checks
+        if (aName == null) {
+            throw new IllegalArgumentException("Name is null");
+        }
+        if (players.containsKey(aName)) {
+            throw new IllegalArgumentException("Non-unique name");
+        }
+        checkRankAndGroup(rank, group);
+
+        // Manufacture a player
+        Player p = new Player(aName, rank, group, ++version);
+        players.put(aName, p);
+        if (history.size() >= 2 * players.size() + DEFAULT_CAPACITY) {
+            history.removeIf((old) -> players.get(old.name) != old);
+        }
+        history.add(p);
+        return p;
+    }
+
+    /**
+     * Lookup the player object by name from this pool.
+     *
+     * @param aName Name of the player to look up.
+     * @return Player object, or null if there is no such player in this pool.
+     */
+    public Player lookupByName(String aName) {
+        return players.get(aName);
+    }
+
+    /**
+     * Replace the Player object with the specified name.
+     *
+     * @param aName The name of the player whose object should be replaced.
+     * @param rank The rank of the replacement player.
+     * @param group The group number of the replacement player.
+     * @throws IllegalArgumentException If name, rank or group are illegal values. The old player is then kept.
+     */
+    public void replace(String aName, int rank, int group) throws IllegalArgumentException {
+        // Check before removing, so that a bad replacement leaves the old player in the pool
+        if (aName == null) {
+            throw new IllegalArgumentException("Name is null");
+        }
+        checkRankAndGroup(rank, group);
+        // First we have to remove the player from the pool
+        players.remove(aName);
+        // Then we create a replacement player, which automatically adds it to the pool
+        create(aName, group, rank);
+    }
+
+    /**
+     * Version of the most recently made player object, or 0 if none has been made. Versions keep counting up
+     * when the pool is cleared.
+     *
+     * @return Current version.
+     */
+    public long currentVersion() {
+        return version;
+    }
+
+    /**
+     * Names of the players whose objects were made or replaced after the specified version. Runs in time
+     * proportional to the number of changes, not to the size of the pool.
+     *
+     * @param since Version to compare against, usually an earlier result of currentVersion.
+     * @return Names in the order of their latest change, each name once.
+     * @throws IllegalArgumentException If version is negative, greater than the current version, or from before
+     *                                  the pool was last cleared.
+     */
+    public List<String> changedSince(long since) throws IllegalArgumentException {
+        if (since < 0 || since > version) {
+            throw new IllegalArgumentException("Bad version");
+        }
+        if (since < versionBase) {
+            throw new IllegalArgumentException("Version is from before the pool was cleared");
+        }
+
+        // Versions only increase along the history, so binary search for the first one after since
+        int low = 0;
+        int high = history.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (history.get(mid).version <= since) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        List<String> changed = new ArrayList<String>(history.size() - low);
+        for (Player p : history.subList(low, history.size())) {
+            if (players.get(p.name) == p) {
+                changed.add(p.name);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Drop every player in the pool, releasing their memory in one step. The pool is then sized again for the
+     * number of players it was constructed for.
+     *
+     * @throws UnsupportedOperationException If this is the default pool.
+     */
+    public void clear() throws UnsupportedOperationException {
+        if (this == DEFAULT) {
+            throw new UnsupportedOperationException("The default pool cannot be cleared");
+        }
+        versionBase = version;
+        players = newMap(expectedPlayers);
+        capacity = expectedPlayers;
+        history = new ArrayList<Player>(expectedPlayers);
+    }
+
+    /**
+     * @return The pool name.
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static void checkRankAndGroup(int rank, int group) throws IllegalArgumentException {
+        if (rank < 1 || rank > 100) {
+            throw new IllegalArgumentException("Bad rank");
+        }
+        if (group < 0) {
+            throw new IllegalArgumentException("Bad group");
+        }
+    }
+
+    /* A map that holds the specified number of players without rehashing */
+    private static HashMap<String, Player> newMap(int somePlayers) {
+        return new HashMap<String, Player>(Math.max(DEFAULT_CAPACITY, (int) (somePlayers / 0.75f) + 1));
+    }
+}
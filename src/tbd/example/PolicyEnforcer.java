@@ -1,8 +1,14 @@
 package tbd.example;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Arrange rosters according to a specified policy.
+ * Arrange rosters according to a specified policy. The enforcer works in the player pool of its rosters, so both
+ * rosters must be bound to the same pool, and the rules to that pool or to no pool.
  */
 public class PolicyEnforcer {
     /**
@@ -27,19 +33,33 @@ public class PolicyEnforcer {
      * so 4 vs 9 would be fine, as long as groups 2 and 4 are in the left roster and groups 1 and 3
      * are in the right. Changing the group numbers of excluded players is allowed, but do not move them from
      * their original rosters.
+     *
+     * COMBINED - meet a weighted set of Constraints at the same time, such as the count difference and rank sum
+     * window of BY_RANK together with the group parity of BY_GROUP. The arrangement with the lowest weighted
+     * violation found within the time budget of the Constraints is used, and getConstraintStatuses reports which
+     * constraints it meets.
      */
     public enum Policy {
         BY_NUMBER,
         BY_RANK,
-        BY_GROUP
+        BY_GROUP,
+        COMBINED
     }
 
+    /**
+     * How far apart the rank sums of rosters arranged BY_RANK may be, inclusive.
+     */
+    public static final int RANK_WINDOW = 90;
+
     private Policy policy;
+    private PlayerPool pool;
     private Roster leftRosterOriginal;
     private Roster rightRosterOriginal;
     private Roster leftRosterFinal;
     private Roster rightRosterFinal;
     private Rules rules;
+    private Constraints constraints;
+    private EnumMap<Constraints.Constraint, Status> constraintStatuses;
 
     /**
      * Left result getter.
@@ -60,15 +80,36 @@ public class PolicyEnforcer {
     }
 
     /**
-     * Construct an enforcer for a specific policy and a specific pair of rosters.
+     * Player pool getter.
+     *
+     * @return The pool of the rosters.
+     */
+    public PlayerPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Status of each weighted constraint after a COMBINED arrangement. Empty for other policies, or before arrange.
+     *
+     * @return Unmodifiable map of constraint to status.
+     */
+    public Map<Constraints.Constraint, Status> getConstraintStatuses() {
+        return Collections.unmodifiableMap(constraintStatuses);
+    }
+
+    /**
+     * Construct an enforcer for a specific policy and a specific pair of rosters. The COMBINED policy uses
+     * the default Constraints.
      *
      * @param aPolicy Policy to use to arrange the rosters.
-     * @param someRules Rules to be applied during this arrangement.
+     * @param someRules Rules to be applied during this arrangement. The enforcer keeps a frozen snapshot, which
+     *                  costs nothing if the rules are frozen already, so later changes to mutable rules are ignored.
      * @param leftOriginal Left-hand Roster, must be non-null and greater than 0 size. Ownership of object adopted
      *                     by this class.
      * @param rightOriginal Right-hand Roster, must be non-null and greater than 0 size. Ownership of object adopted
      *                      by this class.
-     * @throws IllegalArgumentException If any argument is illegal, such as a roster being empty.
+     * @throws IllegalArgumentException If any argument is illegal, such as a roster being empty, or the rosters and
+     *                                  rules being bound to different player pools.
      */
     public PolicyEnforcer(Policy aPolicy, Rules someRules, Roster leftOriginal, Roster rightOriginal) throws IllegalArgumentException {
 
@@ -82,10 +123,36 @@ public class PolicyEnforcer {
         if (rightOriginal.size() <= 0) {
             throw new IllegalArgumentException("rightOriginal.size() is not > 0");
         }
+        if (leftOriginal.getPool() != rightOriginal.getPool()) {
+            throw new IllegalArgumentException("Rosters are bound to different player pools");
+        }
+        if (someRules.getPool() != null && someRules.getPool() != leftOriginal.getPool()) {
+            throw new IllegalArgumentException("Rules are bound to another player pool");
+        }
         policy = aPolicy;
-        rules = someRules;
+        pool = leftOriginal.getPool();
+        rules = someRules.compile();
         leftRosterOriginal = leftOriginal;
         rightRosterOriginal = rightOriginal;
+        constraints = new Constraints();
+        constraintStatuses = new EnumMap<Constraints.Constraint, Status>(Constraints.Constraint.class);
+    }
+
+    /**
+     * Construct an enforcer for the COMBINED policy with specific constraints and a specific pair of rosters.
+     *
+     * @param someRules Rules to be applied during this arrangement, kept as a frozen snapshot.
+     * @param someConstraints Weighted constraints to meet.
+     * @param leftOriginal Left-hand Roster, must be non-null and greater than 0 size. Ownership of object adopted
+     *                     by this class.
+     * @param rightOriginal Right-hand Roster, must be non-null and greater than 0 size. Ownership of object adopted
+     *                      by this class.
+     * @throws IllegalArgumentException If any argument is illegal, such as a roster being empty.
+     */
+    public PolicyEnforcer(Rules someRules, Constraints someConstraints, Roster leftOriginal, Roster rightOriginal)
+            throws IllegalArgumentException {
+        this(Policy.COMBINED, someRules, leftOriginal, rightOriginal);
+        constraints = someConstraints;
     }
 
     /**
@@ -97,6 +164,9 @@ public class PolicyEnforcer {
      */
     public Status arrange()  {
         switch (policy) {
+            case COMBINED:
+                return arrangeCombined();
+
             case BY_GROUP:
                 return arrangeByGroup();
 
@@ -115,11 +185,13 @@ public class PolicyEnforcer {
         Initialize final roster collections.
         Do all of your arrangement work with the final rosters.
         */
-        leftRosterFinal = new Roster();
-        rightRosterFinal = new Roster();
+        leftRosterFinal = new Roster(pool);
+        rightRosterFinal = new Roster(pool);
 
         leftRosterFinal.addAll(leftRosterOriginal, Rules.NoRules);
         rightRosterFinal.addAll(rightRosterOriginal, Rules.NoRules);
+        leftRosterFinal.trackExclusions(rules);
+        rightRosterFinal.trackExclusions(rules);
 
         // Guess the larger roster is the left one
         Roster bigger = leftRosterFinal;
@@ -136,7 +208,6 @@ public class PolicyEnforcer {
 
     /* See Policy declaration comment for BY_NUMBER implementation requirements */
     private Status arrangeByNumber() {
-        // The setup of this method is done for you ... start from TODO
         Pair<Roster> pair = initBiggerSmaller();
         Roster bigger = pair.first;
         Roster smaller = pair.second;
@@ -146,22 +217,176 @@ public class PolicyEnforcer {
             return Status.ALREADY_ARRANGED;
         }
 
-        // TODO
+        // Each move closes the gap by 2, so half the difference must be movable
+        int needed = (bigger.size() - smaller.size()) / 2;
+        if (bigger.movableCount() < needed) {
+            return Status.TOO_MANY_EXCLUSIONS;
+        }
+        bigger.moveAllTo(bigger.movablePlayers().subList(0, needed), smaller, rules);
 
         return Status.SUCCESS;
     }
 
     /* See Policy declaration comment for BY_RANK implementation requirements */
     private Status arrangeByRank() {
-        // TODO
+        Pair<Roster> pair = initBiggerSmaller();
+        Roster bigger = pair.first;
+        Roster smaller = pair.second;
+
+        if (bigger.size() - smaller.size() <= 2 && Math.abs(bigger.rankSum() - smaller.rankSum()) <= RANK_WINDOW) {
+            return Status.ALREADY_ARRANGED;
+        }
+
+        int needed = (bigger.size() - smaller.size() - 1) / 2;
+        if (bigger.movableCount() < needed) {
+            return Status.TOO_MANY_EXCLUSIONS;
+        }
+
+        // Movable players bucketed by rank, so each step only has to consider 100 ranks, not every player
+        RankBuckets<String> biggerBuckets = RankBuckets.Movable(bigger, rules);
+        RankBuckets<String> smallerBuckets = RankBuckets.Movable(smaller, rules);
+
+        // First even out the counts, each time moving the rank that best closes the rank sum gap
+        for (int i = 0; i < needed; i++) {
+            int rank = biggerBuckets.closest((bigger.rankSum() - smaller.rankSum()) / 2.0);
+            String name = biggerBuckets.take(rank);
+            bigger.moveTo(name, smaller, rules);
+            smallerBuckets.put(rank, name);
+        }
+
+        // Then improve the rank sums with single moves or swaps until they are within the window of each other
+        while (Math.abs(bigger.rankSum() - smaller.rankSum()) > RANK_WINDOW) {
+            long gap = bigger.rankSum() - smaller.rankSum();
+            Roster from = gap > 0 ? bigger : smaller;
+            Roster to = gap > 0 ? smaller : bigger;
+            RankBuckets<String> fromBuckets = gap > 0 ? biggerBuckets : smallerBuckets;
+            RankBuckets<String> toBuckets = gap > 0 ? smallerBuckets : biggerBuckets;
+            long absGap = Math.abs(gap);
+
+            // Best single move, allowed only while the counts stay within 2
+            int bestOut = 0;
+            int bestIn = 0;
+            long bestGap = absGap;
+            if (Math.abs(from.size() - to.size() - 2) <= 2) {
+                for (int out = 1; out <= 100; out++) {
+                    if (fromBuckets.has(out) && Math.abs(absGap - 2L * out) < bestGap) {
+                        bestOut = out;
+                        bestGap = Math.abs(absGap - 2L * out);
+                    }
+                }
+            }
+            // Best swap, which leaves the counts alone
+            for (int out = 1; out <= 100; out++) {
+                if (!fromBuckets.has(out)) {
+                    continue;
+                }
+                for (int in = 1; in < out; in++) {
+                    if (toBuckets.has(in) && Math.abs(absGap - 2L * (out - in)) < bestGap) {
+                        bestOut = out;
+                        bestIn = in;
+                        bestGap = Math.abs(absGap - 2L * (out - in));
+                    }
+                }
+            }
+
+            if (bestOut == 0) {
+                return splitByRank(bigger, smaller, biggerBuckets, smallerBuckets);
+            }
+            String outName = fromBuckets.take(bestOut);
+            from.moveTo(outName, to, rules);
+            if (bestIn != 0) {
+                String inName = toBuckets.take(bestIn);
+                to.moveTo(inName, from, rules);
+                fromBuckets.put(bestIn, inName);
+            }
+            toBuckets.put(bestOut, outName);
+        }
+
+        return Status.SUCCESS;
+    }
+
+    /*
+     * Utility method: when no single move or swap narrows the rank sum gap, choose afresh how many movable players
+     * of each rank the bigger roster holds, by an exact search over the movable players of both rosters, and move
+     * the difference. RANKS_TOO_LOPSIDED only if the search finds that there is no arrangement.
+     */
+    private Status splitByRank(Roster bigger, Roster smaller, RankBuckets<String> biggerBuckets,
+            RankBuckets<String> smallerBuckets) {
+        // The bigger roster's excluded players stay, so the search covers only what is left of its count and sum
+        int[] movable = new int[101];
+        int excludedCount = bigger.size();
+        long excludedRankSum = bigger.rankSum();
+        for (int rank = 1; rank <= 100; rank++) {
+            movable[rank] = biggerBuckets.count(rank) + smallerBuckets.count(rank);
+            excludedCount -= biggerBuckets.count(rank);
+            excludedRankSum -= (long) rank * biggerBuckets.count(rank);
+        }
+        int players = bigger.size() + smaller.size();
+        long rankSum = bigger.rankSum() + smaller.rankSum();
+        int[] chosen = RankSplit.choose(movable,
+                -Math.floorDiv(-(players - 2), 2) - excludedCount,
+                Math.floorDiv(players + 2, 2) - excludedCount,
+                -Math.floorDiv(-(rankSum - RANK_WINDOW), 2) - excludedRankSum,
+                Math.floorDiv(rankSum + RANK_WINDOW, 2) - excludedRankSum);
+        if (chosen == null) {
+            return Status.RANKS_TOO_LOPSIDED;
+        }
 
+        List<String> leaving = new ArrayList<String>();
+        List<String> arriving = new ArrayList<String>();
+        for (int rank = 1; rank <= 100; rank++) {
+            for (int i = biggerBuckets.count(rank); i > chosen[rank]; i--) {
+                leaving.add(biggerBuckets.take(rank));
+            }
+            for (int i = biggerBuckets.count(rank); i < chosen[rank]; i++) {
+                arriving.add(smallerBuckets.take(rank));
+            }
+        }
+        bigger.moveAllTo(leaving, smaller, rules);
+        smaller.moveAllTo(arriving, bigger, rules);
         return Status.SUCCESS;
     }
 
     /* See Policy declaration comment for BY_GROUP implementation requirements */
     private Status arrangeByGroup() {
-        // TODO
+        initBiggerSmaller();
+
+        // Move every movable player on the wrong side, then settle group numbers on each side
+        List<String> leftToRight = wrongSide(leftRosterFinal, Roster.GroupParity.ODD);
+        List<String> rightToLeft = wrongSide(rightRosterFinal, Roster.GroupParity.EVEN);
+        leftRosterFinal.moveAllTo(leftToRight, rightRosterFinal, rules, Roster.GroupParity.ODD);
+        rightRosterFinal.moveAllTo(rightToLeft, leftRosterFinal, rules, Roster.GroupParity.EVEN);
+        settleParity(leftRosterFinal, Roster.GroupParity.EVEN);
+        settleParity(rightRosterFinal, Roster.GroupParity.ODD);
 
         return Status.SUCCESS;
     }
+
+    /* See Policy declaration comment for COMBINED implementation requirements */
+    private Status arrangeCombined() {
+        initBiggerSmaller();
+
+        CombinedSolver solver = new CombinedSolver(leftRosterFinal, rightRosterFinal, rules, constraints);
+        Status status = solver.solve();
+        constraintStatuses = solver.getStatuses();
+        return status;
+    }
+
+    /* Utility method: bump group numbers in a roster until every player has the wanted parity */
+    private void settleParity(Roster roster, Roster.GroupParity parity) {
+        for (int i = 0; i < roster.size(); i++) {
+            roster.updateGroup(roster.get(i), rules, parity);
+        }
+    }
+
+    /* Utility method: movable names in a roster whose group has the parity of the other side, in roster order */
+    private List<String> wrongSide(Roster roster, Roster.GroupParity parity) {
+        List<String> wrong = new ArrayList<String>();
+        roster.forEachIndexed((i, name, rank, group) -> {
+            if (Roster.CheckParity(group) == parity && !rules.isNameExcluded(name)) {
+                wrong.add(name);
+            }
+        });
+        return wrong;
+    }
 }
@@ -0,0 +1,61 @@
+package tbd.example;
+
+import java.util.ArrayDeque;
+
+/**
+ * Movable players indexed by rank, 1 to 100, so that the rank arrangements only have to consider 100 ranks at each
+ * step, not every player. Used by the BY_RANK policy of both the PolicyEnforcer and the PartitionEnforcer.
+ *
+ * @param <T> What is kept for each player, such as its name.
+ */
+class RankBuckets<T> {
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<T>[] buckets = (ArrayDeque<T>[]) new ArrayDeque<?>[101];
+
+    /**
+     * Bucket the names of the players in a roster that the rules allow to be moved.
+     *
+     * @param roster Roster to take the players from.
+     * @param rules Rules to take the excluded names from.
+     * @return Names bucketed by rank.
+     */
+    static RankBuckets<String> Movable(Roster roster, Rules rules) {
+        RankBuckets<String> movable = new RankBuckets<String>();
+        roster.forEachIndexed((i, name, rank, group) -> {
+            if (!rules.isNameExcluded(name)) {
+                movable.put(rank, name);
+            }
+        });
+        return movable;
+    }
+
+    boolean has(int rank) {
+        return buckets[rank] != null && !buckets[rank].isEmpty();
+    }
+
+    void put(int rank, T player) {
+        if (buckets[rank] == null) {
+            buckets[rank] = new ArrayDeque<T>();
+        }
+        buckets[rank].add(player);
+    }
+
+    int count(int rank) {
+        return buckets[rank] == null ? 0 : buckets[rank].size();
+    }
+
+    T take(int rank) {
+        return buckets[rank].poll();
+    }
+
+    /* Rank present in the buckets that is closest to the target value, or 0 if the buckets are empty */
+    int closest(double target) {
+        int best = 0;
+        for (int rank = 1; rank <= 100; rank++) {
+            if (has(rank) && (best == 0 || Math.abs(rank - target) < Math.abs(best - target))) {
+                best = rank;
+            }
+        }
+        return best;
+    }
+}
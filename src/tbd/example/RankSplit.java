@@ -0,0 +1,140 @@
+package tbd.example;
+
+/**
+ * Exact search for how many movable players of each rank one of two rosters should hold, so that the number of
+ * players it holds and their rank sum both land in given ranges. The BY_RANK policy of the PolicyEnforcer and the
+ * PartitionEnforcer falls back on it when no single move or swap narrows the gap between two rosters.
+ *
+ * For a fixed number of players, any selection can be turned into the one with the highest rank sum by replacing
+ * one player at a time with a higher ranked player that is not selected, and each replacement can be chosen to
+ * raise the sum by no more than the widest gap between two ranks present. So when the range of sums is at least
+ * that wide, it is reached if and only if it overlaps the lowest and highest sums for that number of players. Only
+ * one gap between ranks 1 to 100 can be wider than a range of 90, so if there is such a gap, the players are cut
+ * there into a low and a high cluster, and every way of sharing the count between the two clusters is tried.
+ */
+class RankSplit {
+    /* Ranks of the movable players in ascending order, and the sum of the first i of them at index i */
+    private final int[] ranks;
+    private final long[] prefix;
+
+    private RankSplit(int[] movable) {
+        int players = 0;
+        for (int rank = 1; rank <= 100; rank++) {
+            players += movable[rank];
+        }
+        ranks = new int[players];
+        prefix = new long[players + 1];
+        int i = 0;
+        for (int rank = 1; rank <= 100; rank++) {
+            for (int j = 0; j < movable[rank]; j++, i++) {
+                ranks[i] = rank;
+                prefix[i + 1] = prefix[i] + rank;
+            }
+        }
+    }
+
+    /**
+     * Choose some of the movable players such that their number and their rank sum are in the given ranges. The
+     * answer is exact whenever the range of sums is at least 90 wide; for narrower ranges a split may be missed.
+     *
+     * @param movable Number of movable players of each rank, indexed 1 to 100.
+     * @param fewest Lowest number of players to choose.
+     * @param most Highest number of players to choose.
+     * @param lowest Lowest rank sum of the chosen players.
+     * @param highest Highest rank sum of the chosen players.
+     * @return Number of chosen players of each rank, indexed 1 to 100, or null if there is no such choice.
+     */
+    static int[] choose(int[] movable, int fewest, int most, long lowest, long highest) {
+        return new RankSplit(movable).choose(fewest, most, lowest, highest);
+    }
+
+    private int[] choose(int fewest, int most, long lowest, long highest) {
+        int players = ranks.length;
+
+        // Cut at the widest gap between ranks present if it is wider than the range of sums
+        int cut = players;
+        int widest = 0;
+        for (int i = 1; i < players; i++) {
+            if (ranks[i] - ranks[i - 1] > widest) {
+                widest = ranks[i] - ranks[i - 1];
+                cut = i;
+            }
+        }
+        if (widest <= highest - lowest + 1) {
+            cut = players;
+        }
+
+        for (int count = Math.max(0, fewest); count <= Math.min(players, most); count++) {
+            for (int high = Math.max(0, count - cut); high <= Math.min(count, players - cut); high++) {
+                int low = count - high;
+                long lowLeast = sum(0, low);
+                long highGreatest = sum(players - high, players);
+                if (lowLeast + sum(cut, cut + high) > highest || sum(cut - low, cut) + highGreatest < lowest) {
+                    continue;
+                }
+
+                // Raise the high cluster with the low one at its least, then the low one with the high at its greatest
+                int[] chosen = new int[101];
+                boolean found = (lowest - lowLeast <= highGreatest)
+                        ? pick(cut, players, high, lowest - lowLeast, highest - lowLeast, chosen)
+                                && pick(0, cut, low, lowLeast, lowLeast, chosen)
+                        : pick(cut, players, high, highGreatest, highGreatest, chosen)
+                                && pick(0, cut, low, lowest - highGreatest, highest - highGreatest, chosen);
+                if (found) {
+                    return chosen;
+                }
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Choose count of the players from..to whose ranks add up to lowest..highest, and add them to chosen. Tries
+     * the lowest count - t with the highest t players for the fewest t that reaches lowest, and if that overshoots,
+     * the same for t - 1 with its highest low player replaced by the lowest higher one that reaches lowest.
+     */
+    private boolean pick(int from, int to, int count, long lowest, long highest, int[] chosen) {
+        int t = 0;
+        while (t < count && sum(from, from + count - t) + sum(to - t, to) < lowest) {
+            t++;
+        }
+        long reached = sum(from, from + count - t) + sum(to - t, to);
+        if (reached < lowest) {
+            return false;
+        }
+        if (reached <= highest) {
+            add(from, from + count - t, chosen);
+            add(to - t, to, chosen);
+            return true;
+        }
+        if (t == 0) {
+            return false;
+        }
+
+        int out = from + count - t;
+        long rest = sum(from, out) + sum(to - t + 1, to);
+        int in = out + 1;
+        while (in < to - t && rest + ranks[in] < lowest) {
+            in++;
+        }
+        if (rest + ranks[in] > highest) {
+            return false;
+        }
+        add(from, out, chosen);
+        add(in, in + 1, chosen);
+        add(to - t + 1, to, chosen);
+        return true;
+    }
+
+    /* Sum of the ranks of the players from..to */
+    private long sum(int from, int to) {
+        return prefix[to] - prefix[from];
+    }
+
+    /* Count the players from..to in chosen */
+    private void add(int from, int to, int[] chosen) {
+        for (int i = from; i < to; i++) {
+            chosen[ranks[i]]++;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package tbd.example;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes arranged rosters through a large buffer straight to a channel, formatting numbers and encoding names
+ * by hand, so that no String is built per player.
+ *
+ * Three formats are supported:
+ *
+ * + TEXT - the layout of out.txt: free text lines, and for each roster a title line followed by one
+ * "1. Name: Alice, Group: 3, Rank: 23" line per player.
+ *
+ * + CSV - a "roster,index,name,group,rank" header, then one row per player. Free text lines are left out.
+ *
+ * + BINARY - big-endian: the bytes "RPT1", then for each roster the title and the player count, then for each
+ * player its group, rank and name. Strings are written as an int byte count followed by UTF-8 bytes.
+ * Free text lines are left out.
+ *
+ * Errors writing to the channel are thrown as UncheckedIOException.
+ */
+public class ReportWriter implements Closeable {
+
+    /**
+     * Output formats.
+     */
+    public enum Format {
+        TEXT,
+        CSV,
+        BINARY
+    }
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes();
+
+    private final WritableByteChannel channel;
+    private final boolean closeChannel;
+    private final Format format;
+    private final ByteBuffer buffer;
+    private final byte[] digits;
+    private boolean started;
+
+    /**
+     * Construct a writer over a channel.
+     *
+     * @param aChannel Channel to write to.
+     * @param aFormat Format to write.
+     * @param closeOnClose True if closing the writer should also close the channel.
+     */
+    public ReportWriter(WritableByteChannel aChannel, Format aFormat, boolean closeOnClose) {
+        channel = aChannel;
+        format = aFormat;
+        closeChannel = closeOnClose;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        digits = new byte[20];
+    }
+
+    /**
+     * Open a writer to a file, replacing any existing file.
+     *
+     * @param path File to write.
+     * @param format Format to write.
+     * @return Writer that closes the file when it is closed.
+     * @throws UncheckedIOException If the file cannot be opened.
+     */
+    public static ReportWriter Open(Path path, Format format) {
+        try {
+            FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            return new ReportWriter(file, format, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Open a writer to standard output. Closing the writer flushes it but leaves standard output open.
+     *
+     * @param format Format to write.
+     * @return Writer to standard output.
+     */
+    public static ReportWriter Stdout(Format format) {
+        System.out.flush();
+        return new ReportWriter(Channels.newChannel(new FileOutputStream(FileDescriptor.out)), format, false);
+    }
+
+    /**
+     * Write a line of free text. Only the TEXT format writes it.
+     *
+     * @param line Text to write, without a line separator.
+     */
+    public void line(String line) {
+        if (format != Format.TEXT) {
+            return;
+        }
+        putString(line);
+        putBytes(LINE_SEPARATOR);
+    }
+
+    /**
+     * Sort a roster by name and write it.
+     *
+     * @param title Title of the roster, such as LEFT.
+     * @param roster Roster to write. It is left sorted by name.
+     */
+    public void roster(String title, Roster roster) {
+        roster.sortByName();
+        switch (format) {
+            case CSV:
+                if (!started) {
+                    putString("roster,index,name,group,rank");
+                    putBytes(LINE_SEPARATOR);
+                }
+                roster.forEachIndexed((i, name, rank, group) -> {
+                    putCsv(title);
+                    put((byte) ',');
+                    putDecimal(i + 1);
+                    put((byte) ',');
+                    putCsv(name);
+                    put((byte) ',');
+                    putDecimal(group);
+                    put((byte) ',');
+                    putDecimal(rank);
+                    putBytes(LINE_SEPARATOR);
+                });
+                break;
+
+            case BINARY:
+                if (!started) {
+                    putBytes(new byte[] {'R', 'P', 'T', '1'});
+                }
+                putSized(title);
+                ensure(4);
+                buffer.putInt(roster.size());
+                roster.forEachIndexed((i, name, rank, group) -> {
+                    ensure(8);
+                    buffer.putInt(group);
+                    buffer.putInt(rank);
+                    putSized(name);
+                });
+                break;
+
+            case TEXT:
+            default:
+                line(title);
+                roster.forEachIndexed((i, name, rank, group) -> {
+                    putDecimal(i + 1);
+                    putAscii(". Name: ");
+                    putString(name);
+                    putAscii(", Group: ");
+                    putDecimal(group);
+                    putAscii(", Rank: ");
+                    putDecimal(rank);
+                    putBytes(LINE_SEPARATOR);
+                });
+                break;
+        }
+        started = true;
+    }
+
+    /**
+     * Write out everything buffered so far.
+     */
+    public void flush() {
+        try {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flush, and close the channel if the writer owns it.
+     */
+    @Override
+    public void close() {
+        flush();
+        if (closeChannel) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /* Make room for n more bytes */
+    private void ensure(int n) {
+        if (buffer.remaining() < n) {
+            flush();
+        }
+    }
+
+    private void put(byte b) {
+        ensure(1);
+        buffer.put(b);
+    }
+
+    private void putBytes(byte[] bytes) {
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /* Write a string known to be ASCII */
+    private void putAscii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            buffer.put((byte) s.charAt(i));
+        }
+    }
+
+    /* Write a value in decimal, without going through a String */
+    private void putDecimal(long value) {
+        ensure(digits.length + 1);
+        if (value < 0) {
+            buffer.put((byte) '-');
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        while (n > 0) {
+            buffer.put(digits[--n]);
+        }
+    }
+
+    /* Write a string as UTF-8, without going through a byte array */
+    private void putString(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            ensure(4);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xf0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3f)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (cp & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xe0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+    }
+
+    /* Write a CSV field, quoting it only when it holds a comma, quote or line break */
+    private void putCsv(String s) {
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            putString(s);
+            return;
+        }
+        put((byte) '"');
+        int from = 0;
+        for (int i = s.indexOf('"'); i >= 0; i = s.indexOf('"', i + 1)) {
+            putString(s.substring(from, i + 1));
+            put((byte) '"');
+            from = i + 1;
+        }
+        putString(s.substring(from));
+        put((byte) '"');
+    }
+
+    /*
+     * Write a string as its UTF-8 byte count and bytes. The count is filled in once the bytes are written, unless
+     * the string is too long to be sure of fitting in the buffer.
+     */
+    private void putSized(String s) {
+        ensure(4 + 4 * s.length());
+        if (buffer.remaining() < 4 + 4 * s.length()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            ensure(4);
+            buffer.putInt(bytes.length);
+            for (byte b : bytes) {
+                put(b);
+            }
+            return;
+        }
+        int at = buffer.position();
+        buffer.putInt(0);
+        putString(s);
+        buffer.putInt(at, buffer.position() - at - 4);
+    }
+}
@@ -1,12 +1,21 @@
 package tbd.example;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 
 /**
- * A list of player names. Player objects are looked up by name using functions in the Player class.
+ * A list of player names. Player objects are looked up by name in the PlayerPool the roster is bound to, which is
+ * the default pool used by the Player class unless another pool is given to the constructor. Players can only be
+ * moved between rosters of the same pool, and only rules bound to that pool, or to no pool, can be applied.
  *
  * The Roster class should also manage grouping and provide support for checking and changing
  * the size of groups.
@@ -35,39 +44,103 @@ public class Roster {
         }
     }
 
-    // Fields
-    private ArrayList<String> players;
-    // TODO - add any additional fields you need here
+    /**
+     * Callback for forEachIndexed. Receives the rank and group of each player as primitives.
+     */
+    @FunctionalInterface
+    public interface PlayerConsumer {
+        /**
+         * @param index Index of the player in the roster.
+         * @param name Player name.
+         * @param rank Rank of the player.
+         * @param group Group number of the player within this roster.
+         */
+        void accept(int index, String name, int rank, int group);
+    }
 
+    /*
+     * Bookkeeping for one member of the roster: its slot in the players list and in the rank and group arrays, and
+     * which rank histogram it is counted in.
+     */
+    private static class Entry {
+        int index;
+        /* Whether exclusionRules excluded the player when it was counted, so it is uncounted the same way */
+        boolean excluded;
 
-    /**
-     * A convenience variable to make it easier to count stuff in a Roster stream operation
+        Entry(int index) {
+            this.index = index;
+        }
+    }
+
+    // Fields
+    private PlayerPool pool;
+    private ArrayList<String> players;
+    private HashMap<String, Entry> entries;
+    private HashMap<Integer, Integer> groupSizes;
+    /*
+     * Rank, group and Player version of the player in the same slot of the players list. The group is the one
+     * this roster counted the player under, which is kept here because a replace in the pool swaps the pooled Player
+     * object. The version tells which Player object the rank and group were taken from.
      */
-    public int counter;
+    private int[] ranks;
+    private int[] groups;
+    private long[] versions;
+    /*
+     * Rank histograms, indexed by rank 1 to 100, of all players and of the players excluded by exclusionRules,
+     * along with the matching rank sums. Updated on every mutation. A player counts as excluded if exclusionRules
+     * excluded it when it joined or when the rules were last tracked.
+     */
+    private int[] rankCounts;
+    private int[] excludedRankCounts;
+    private long rankSum;
+    private long excludedRankSum;
+    private Rules exclusionRules;
 
     /**
      * Default constructor
      *
-     * Create ArrayList with initial capacity of 12.
+     * Create ArrayList with initial capacity of 12, bound to the default player pool.
      */
     public Roster() {
+        this(PlayerPool.Default());
+    }
+
+    /**
+     * Create an empty roster bound to a player pool.
+     *
+     * @param aPool Pool to look players up in.
+     * @throws IllegalArgumentException If aPool is null.
+     */
+    public Roster(PlayerPool aPool) throws IllegalArgumentException {
+        if (aPool == null) {
+            throw new IllegalArgumentException("aPool is null");
+        }
+        pool = aPool;
         players = new ArrayList<String>(12);
-        counter = 0;
-        // TODO
+        entries = new HashMap<String, Entry>();
+        groupSizes = new HashMap<Integer, Integer>();
+        ranks = new int[12];
+        groups = new int[12];
+        versions = new long[12];
+        rankCounts = new int[101];
+        excludedRankCounts = new int[101];
+        exclusionRules = Rules.NoRules;
     }
 
     /**
      * Sort the roster ascending (A to Z) by name, using the natural lexicographic order.
      */
     public void sortByName() {
-        // TODO
+        players.sort(Comparator.naturalOrder());
+        reindex();
     }
 
     /**
      * Sort the roster descending (100 to 1) by rank
      */
     public void sortByRank() {
-        // TODO
+        players.sort((a, b) -> Integer.compare(ranks[entries.get(b).index], ranks[entries.get(a).index]));
+        reindex();
     }
 
     /**
@@ -81,10 +154,18 @@ public class Roster {
      * @param to Roster to move the player to.
      * @param rules The rules to apply to the move.
      * @throws NoSuchElementException If no Player object can be found for a name.
-     * @throws IllegalArgumentException If name is already in the 'to' roster.
+     * @throws IllegalArgumentException If name is already in the 'to' roster, or the 'to' roster or the rules are
+     *                                  bound to another player pool.
      */
     public void moveTo(String name, Roster to, Rules rules) throws NoSuchElementException, IllegalArgumentException  {
-        // TODO
+        checkPool(to);
+        lookup(name);
+        if (to.contains(name)) {
+            throw new IllegalArgumentException("Name is already in the 'to' roster");
+        }
+        if (remove(name, rules)) {
+            to.add(name, rules);
+        }
     }
 
     /**
@@ -97,11 +178,22 @@ public class Roster {
      * @param rules Rules to be applied to the addition of this player.
      * @return True if this roster was changed, false otherwise.
      * @throws NoSuchElementException If no Player object can be found for a name.
-     * @throws IllegalArgumentException If name is already in this roster.
+     * @throws IllegalArgumentException If name is already in this roster, or the rules are bound to another player
+     *                                  pool.
      */
     public boolean add(String name, Rules rules) throws NoSuchElementException, IllegalArgumentException {
-        // TODO
-        return false; // Correct this line of code and remove this comment
+        checkPool(rules);
+        lookup(name);
+        if (contains(name)) {
+            throw new IllegalArgumentException("Name is already in this roster");
+        }
+        if (rules.isNameExcluded(name)) {
+            return false;
+        }
+        updateGroup(name, rules);
+        ensureCapacity(players.size() + 1);
+        append(lookup(name));
+        return true;
     }
 
     /**
@@ -113,10 +205,17 @@ public class Roster {
      * @param from Roster to add.
      * @param rules Rules to be applied to the addition of all the players in the 'from' roster.
      * @return True if this roster was changed, false otherwise.
+     * @throws IllegalArgumentException If the 'from' roster or the rules are bound to another player pool.
      */
-    public boolean addAll(Roster from, Rules rules) {
-        // TODO
-        return false; // Correct this line of code and remove this comment
+    public boolean addAll(Roster from, Rules rules) throws IllegalArgumentException {
+        checkPool(from);
+        boolean changed = false;
+        for (String name : from.players) {
+            if (!contains(name)) {
+                changed |= add(name, rules);
+            }
+        }
+        return changed;
     }
 
     /**
@@ -129,10 +228,220 @@ public class Roster {
      * @param rules Rules to be applied to the removal of this player
      * @return True if this roster was changed, false otherwise
      * @throws NoSuchElementException If no Player object can be found for a name, or no such name in the roster
+     * @throws IllegalArgumentException If the rules are bound to another player pool.
+     */
+    public boolean remove(String name, Rules rules) throws NoSuchElementException, IllegalArgumentException {
+        checkPool(rules);
+        lookup(name);
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            throw new NoSuchElementException("No such name in this roster");
+        }
+        if (rules.isNameExcluded(name)) {
+            return false;
+        }
+        detach(entry);
+        return true;
+    }
+
+    /**
+     * Move every member of a group from this Roster to another, in one pass. Members the rules exclude from being
+     * moved stay in this roster.
+     *
+     * @param group Group number, as counted by this roster, of the players to move.
+     * @param to Roster to move the players to.
+     * @param rules The rules to apply to the move.
+     * @return Number of players moved.
+     * @throws IllegalArgumentException If group is less than 0, or a member is already in the 'to' roster.
+     * @see #moveAllTo(Collection, Roster, Rules, GroupParity)
      */
-    public boolean remove(String name, Rules rules) throws NoSuchElementException {
-        // TODO
-        return false; // Correct this line of code and remove this comment
+    public int moveGroupTo(int group, Roster to, Rules rules) throws IllegalArgumentException {
+        List<String> members = new ArrayList<String>(groupSize(group));
+        for (int i = 0; i < players.size(); i++) {
+            if (groups[i] == group) {
+                members.add(players.get(i));
+            }
+        }
+        return moveAllTo(members, to, rules, null);
+    }
+
+    /**
+     * Move a set of players from this Roster to another, in one pass.
+     *
+     * @param names Names of the players to move.
+     * @param to Roster to move the players to.
+     * @param rules The rules to apply to the move.
+     * @return Number of players moved.
+     * @throws NoSuchElementException If no Player object can be found for a name, or a name is not in this roster.
+     * @throws IllegalArgumentException If a name is already in the 'to' roster.
+     * @see #moveAllTo(Collection, Roster, Rules, GroupParity)
+     */
+    public int moveAllTo(Collection<String> names, Roster to, Rules rules)
+            throws NoSuchElementException, IllegalArgumentException {
+        return moveAllTo(names, to, rules, null);
+    }
+
+    /**
+     * Move a set of players from this Roster to another, in one pass. Players the rules exclude from being moved,
+     * and repeated names, are skipped. All names are checked before anything is moved, so if an exception is
+     * thrown neither roster has changed.
+     *
+     * Unlike a series of moveTo calls, the exclusion check is done once per player and the group numbers in the
+     * 'to' roster are assigned in a single sweep. The moved players are seated in ascending order of group number,
+     * ties in the order given, and each one is given the lowest group number, starting from its own, that has room
+     * under the maximum group size rule and has the specified parity. The result therefore does not depend on how
+     * far the moved players overflow the maximum group size.
+     *
+     * @param names Names of the players to move.
+     * @param to Roster to move the players to.
+     * @param rules The rules to apply to the move.
+     * @param parity Required parity of the group numbers in the 'to' roster, or null if any parity is acceptable.
+     * @return Number of players moved.
+     * @throws NoSuchElementException If no Player object can be found for a name, or a name is not in this roster.
+     * @throws IllegalArgumentException If a name is already in the 'to' roster, the 'to' roster is this roster,
+     *                                  or the maximum group size of the rules is less than 1.
+     */
+    public int moveAllTo(Collection<String> names, Roster to, Rules rules, GroupParity parity)
+            throws NoSuchElementException, IllegalArgumentException {
+        return moveAllTo(names, to, rules, (parity == null) ? 1 : 2, (parity == GroupParity.ODD) ? 1 : 0);
+    }
+
+    /**
+     * Same as moveAllTo(names, to, rules, parity), except that the group numbers in the 'to' roster must leave the
+     * specified residue when divided by the modulus. A modulus of 2 with a residue of 0 or 1 is the same as EVEN
+     * or ODD parity, and a modulus of 1 accepts any group number.
+     *
+     * @param names Names of the players to move.
+     * @param to Roster to move the players to.
+     * @param rules The rules to apply to the move.
+     * @param modulus Modulus of the group numbers, 1 or greater.
+     * @param residue Required remainder of the group numbers, from 0 to modulus - 1.
+     * @return Number of players moved.
+     * @throws NoSuchElementException If no Player object can be found for a name, or a name is not in this roster.
+     * @throws IllegalArgumentException If a name is already in the 'to' roster, the 'to' roster is this roster,
+     *                                  the maximum group size of the rules is less than 1, the modulus or
+     *                                  residue is out of range, or the 'to' roster or the rules are bound to
+     *                                  another player pool.
+     */
+    public int moveAllTo(Collection<String> names, Roster to, Rules rules, int modulus, int residue)
+            throws NoSuchElementException, IllegalArgumentException {
+        checkResidue(modulus, residue);
+        checkPool(to);
+        checkPool(rules);
+        if (to == this) {
+            throw new IllegalArgumentException("Cannot move players to the same roster");
+        }
+        if (rules.getMaximumGroup() < 1) {
+            throw new IllegalArgumentException("Maximum group size is less than 1");
+        }
+
+        // Check every name first
+        List<Player> moving = new ArrayList<Player>(names.size());
+        HashSet<String> seen = new HashSet<String>();
+        for (String name : names) {
+            Player p = lookup(name);
+            if (!contains(name)) {
+                throw new NoSuchElementException("No such name in this roster");
+            }
+            if (to.contains(name)) {
+                throw new IllegalArgumentException("Name is already in the 'to' roster");
+            }
+            if (seen.add(name) && !rules.isNameExcluded(name)) {
+                moving.add(p);
+            }
+        }
+
+        for (Player p : moving) {
+            detach(entries.get(p.name));
+        }
+        to.seat(moving, rules.getMaximumGroup(), modulus, residue);
+        return moving.size();
+    }
+
+    /* Append players to this roster, assigning all of their group numbers in one sweep */
+    private void seat(List<Player> arriving, int maxGroup, int modulus, int residue) {
+        // Sort by group, keeping the given order within a group: group in the high bits, position in the low bits
+        long[] order = new long[arriving.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = ((long) arriving.get(i).group << 32) | i;
+        }
+        Arrays.sort(order);
+
+        // Groups only fill up during the sweep, so the search for each starting group resumes where it stopped
+        HashMap<Integer, Integer> resume = new HashMap<Integer, Integer>();
+        ensureCapacity(players.size() + order.length);
+        for (long key : order) {
+            Player p = arriving.get((int) key);
+            int group = resume.getOrDefault(p.group, alignGroup(p.group, modulus, residue));
+            while (groupSize(group) + 1 > maxGroup) {
+                group += modulus;
+            }
+            resume.put(p.group, group);
+
+            if (group != p.group) {
+                pool.replace(p.name, p.rank, group);
+            }
+            append(lookup(p.name));
+        }
+    }
+
+    /* Add a player in a new last slot, with room already ensured */
+    private void append(Player p) {
+        int slot = players.size();
+        Entry entry = new Entry(slot);
+        entry.excluded = exclusionRules.isNameExcluded(p.name);
+        entries.put(p.name, entry);
+        players.add(p.name);
+        ranks[slot] = p.rank;
+        groups[slot] = p.group;
+        versions[slot] = p.version;
+        groupSizes.merge(p.group, 1, Integer::sum);
+        countRank(entry, p.rank, 1);
+    }
+
+    /* Bring a member's rank, group and version in line with a Player object */
+    private void sync(Entry entry, Player p) {
+        int slot = entry.index;
+        if (ranks[slot] != p.rank) {
+            countRank(entry, ranks[slot], -1);
+            countRank(entry, p.rank, 1);
+            ranks[slot] = p.rank;
+        }
+        if (groups[slot] != p.group) {
+            uncount(groups[slot]);
+            groupSizes.merge(p.group, 1, Integer::sum);
+            groups[slot] = p.group;
+        }
+        versions[slot] = p.version;
+    }
+
+    /* Grow the rank and group arrays to hold at least capacity players */
+    private void ensureCapacity(int capacity) {
+        if (capacity > ranks.length) {
+            int length = Math.max(capacity, ranks.length + (ranks.length >> 1) + 1);
+            ranks = Arrays.copyOf(ranks, length);
+            groups = Arrays.copyOf(groups, length);
+            versions = Arrays.copyOf(versions, length);
+        }
+    }
+
+    /* Take a player out of this roster, with no rule checks */
+    private void detach(Entry entry) {
+        String name = players.get(entry.index);
+
+        // Fill the vacated slot with the last player so removal stays O(1); order is restored by sorting
+        uncount(groups[entry.index]);
+        countRank(entry, ranks[entry.index], -1);
+        int lastSlot = players.size() - 1;
+        String last = players.remove(lastSlot);
+        if (!last.equals(name)) {
+            players.set(entry.index, last);
+            ranks[entry.index] = ranks[lastSlot];
+            groups[entry.index] = groups[lastSlot];
+            versions[entry.index] = versions[lastSlot];
+            entries.get(last).index = entry.index;
+        }
+        entries.remove(name);
     }
 
     /**
@@ -144,8 +453,10 @@ public class Roster {
      * @throws IllegalArgumentException If group is less than 0.
      */
     public int groupSize(int group) throws IllegalArgumentException {
-        // TODO
-        return 0; // Correct this line of code and remove this comment
+        if (group < 0) {
+            throw new IllegalArgumentException("Bad group");
+        }
+        return groupSizes.getOrDefault(group, 0);
     }
 
     /**
@@ -165,11 +476,320 @@ public class Roster {
      * @throws NoSuchElementException If no Player object can be found for a name.
      */
     public int updateGroup(String name, Rules rules) {
-        // TODO
-        return 0; // Correct this line of code and remove this comment
+        return updateGroup(name, rules, null);
     }
 
-    // TODO - add any additional methods you may need here
+    /**
+     * Same as updateGroup(name, rules), except that only group numbers of the specified parity are acceptable.
+     *
+     * If the named player is already in this roster, the player does not count against its own group, and the
+     * roster's group sizes are updated to reflect the new group number.
+     *
+     * @param name The name of the player to update.
+     * @param rules The rules to apply.
+     * @param parity Required parity of the group number, or null if any parity is acceptable.
+     * @return The group number of the player.
+     * @throws NoSuchElementException If no Player object can be found for a name.
+     * @throws IllegalArgumentException If the maximum group size of the rules is less than 1.
+     */
+    public int updateGroup(String name, Rules rules, GroupParity parity) {
+        return updateGroup(name, rules, (parity == null) ? 1 : 2, (parity == GroupParity.ODD) ? 1 : 0);
+    }
+
+    /**
+     * Same as updateGroup(name, rules, parity), except that only group numbers that leave the specified residue
+     * when divided by the modulus are acceptable.
+     *
+     * @param name The name of the player to update.
+     * @param rules The rules to apply.
+     * @param modulus Modulus of the group number, 1 or greater.
+     * @param residue Required remainder of the group number, from 0 to modulus - 1.
+     * @return The group number of the player.
+     * @throws NoSuchElementException If no Player object can be found for a name.
+     * @throws IllegalArgumentException If the maximum group size of the rules is less than 1, the modulus or
+     *                                  residue is out of range, or the rules are bound to another player pool.
+     */
+    public int updateGroup(String name, Rules rules, int modulus, int residue) {
+        checkResidue(modulus, residue);
+        checkPool(rules);
+        Player p = lookup(name);
+        int maxGroup = rules.getMaximumGroup();
+        if (maxGroup < 1) {
+            throw new IllegalArgumentException("Maximum group size is less than 1");
+        }
+
+        Entry entry = entries.get(name);
+        int group = alignGroup(p.group, modulus, residue);
+        while (occupancy(group, entry) + 1 > maxGroup) {
+            group += modulus;
+        }
+
+        if (group != p.group) {
+            pool.replace(name, p.rank, group);
+            p = lookup(name);
+        }
+        if (entry != null) {
+            sync(entry, p);
+        }
+        return group;
+    }
+
+    /**
+     * Check if the named player is in this roster.
+     *
+     * @param name Player name to check.
+     * @return True if the player is in this roster, false otherwise.
+     */
+    public boolean contains(String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * Player pool this roster is bound to.
+     *
+     * @return The pool.
+     */
+    public PlayerPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Set the rules whose excluded names are tracked by the movable and excluded rank aggregates of this roster,
+     * and recount the aggregates. Defaults to Rules.NoRules, under which every player is movable.
+     *
+     * Call this again after adding excluded names to mutable rules, since the roster is not told about them. Until
+     * then, each player stays counted as it was when it joined, so the aggregates are out of date but consistent.
+     * Frozen rules never change, so they only need to be tracked once.
+     *
+     * @param rules Rules to take the excluded names from.
+     * @throws IllegalArgumentException If the rules are bound to another player pool.
+     */
+    public void trackExclusions(Rules rules) throws IllegalArgumentException {
+        checkPool(rules);
+        exclusionRules = rules;
+        Arrays.fill(excludedRankCounts, 0);
+        excludedRankSum = 0;
+        for (int i = 0; i < players.size(); i++) {
+            Entry entry = entries.get(players.get(i));
+            entry.excluded = rules.isNameExcluded(players.get(i));
+            if (entry.excluded) {
+                excludedRankCounts[ranks[i]]++;
+                excludedRankSum += ranks[i];
+            }
+        }
+    }
+
+    /**
+     * Sum of the ranks of all players in this roster.
+     *
+     * @return Rank sum.
+     */
+    public long rankSum() {
+        return rankSum;
+    }
+
+    /**
+     * Sum of the ranks of the players in this roster that the tracked rules allow to be moved.
+     *
+     * @return Movable rank sum.
+     * @see #trackExclusions(Rules)
+     */
+    public long movableRankSum() {
+        return rankSum - excludedRankSum;
+    }
+
+    /**
+     * Number of players in this roster that the tracked rules allow to be moved.
+     *
+     * @return Movable player count.
+     * @see #trackExclusions(Rules)
+     */
+    public int movableCount() {
+        int excluded = 0;
+        for (int rank = 1; rank <= 100; rank++) {
+            excluded += excludedRankCounts[rank];
+        }
+        return players.size() - excluded;
+    }
+
+    /**
+     * Names of the players in this roster that the tracked rules allow to be moved.
+     *
+     * @return Movable names, in roster order.
+     * @see #trackExclusions(Rules)
+     */
+    public List<String> movablePlayers() {
+        List<String> movable = new ArrayList<String>(players.size());
+        for (String name : players) {
+            if (!entries.get(name).excluded) {
+                movable.add(name);
+            }
+        }
+        return movable;
+    }
+
+    /**
+     * Number of players of the specified rank in this roster.
+     *
+     * @param rank Rank to count, from 1 to 100.
+     * @return Number of players.
+     * @throws IllegalArgumentException If rank is out of range.
+     */
+    public int rankCount(int rank) throws IllegalArgumentException {
+        return rankCounts[checkRank(rank)];
+    }
+
+    /**
+     * Number of players of the specified rank in this roster that the tracked rules allow to be moved.
+     *
+     * @param rank Rank to count, from 1 to 100.
+     * @return Number of movable players.
+     * @throws IllegalArgumentException If rank is out of range.
+     * @see #trackExclusions(Rules)
+     */
+    public int movableRankCount(int rank) throws IllegalArgumentException {
+        checkRank(rank);
+        return rankCounts[rank] - excludedRankCounts[rank];
+    }
+
+    /**
+     * Smallest rank sum of any k movable players in this roster.
+     *
+     * @param k Number of players.
+     * @return The rank sum of the k lowest ranked movable players.
+     * @throws IllegalArgumentException If k is negative or greater than the number of movable players.
+     */
+    public long minMovableRankSum(int k) throws IllegalArgumentException {
+        return extremeMovableRankSum(k, 1, 1);
+    }
+
+    /**
+     * Largest rank sum of any k movable players in this roster.
+     *
+     * @param k Number of players.
+     * @return The rank sum of the k highest ranked movable players.
+     * @throws IllegalArgumentException If k is negative or greater than the number of movable players.
+     */
+    public long maxMovableRankSum(int k) throws IllegalArgumentException {
+        return extremeMovableRankSum(k, 100, -1);
+    }
+
+    /**
+     * Quick feasibility check of whether some k movable players have a rank sum from low to high inclusive,
+     * for example, whether moving k players can close a rank sum gap. Runs in O(100) time.
+     *
+     * A false result is exact. A true result only means the range of possible sums overlaps the target,
+     * since k players may not reach every sum between their smallest and largest rank sums.
+     *
+     * @param k Number of players to move.
+     * @param low Lowest acceptable rank sum of the k players.
+     * @param high Highest acceptable rank sum of the k players.
+     * @return False if no k movable players can have a rank sum in the range.
+     */
+    public boolean canReachRankSum(int k, long low, long high) {
+        if (k < 0 || k > movableCount() || low > high) {
+            return false;
+        }
+        return minMovableRankSum(k) <= high && maxMovableRankSum(k) >= low;
+    }
+
+    /* Sum of the first k movable ranks, walking the histogram from one end */
+    private long extremeMovableRankSum(int k, int start, int step) {
+        if (k < 0 || k > movableCount()) {
+            throw new IllegalArgumentException("Bad number of players: " + k);
+        }
+        long sum = 0;
+        for (int rank = start; k > 0; rank += step) {
+            int take = Math.min(k, rankCounts[rank] - excludedRankCounts[rank]);
+            sum += (long) take * rank;
+            k -= take;
+        }
+        return sum;
+    }
+
+    /* Add delta players of a rank to the histograms */
+    private void countRank(Entry entry, int rank, int delta) {
+        rankCounts[rank] += delta;
+        rankSum += (long) delta * rank;
+        if (entry.excluded) {
+            excludedRankCounts[rank] += delta;
+            excludedRankSum += (long) delta * rank;
+        }
+    }
+
+    /* Validate a rank argument */
+    private static int checkRank(int rank) throws IllegalArgumentException {
+        if (rank < 1 || rank > 100) {
+            throw new IllegalArgumentException("Bad rank");
+        }
+        return rank;
+    }
+
+    /* Check that another roster shares this roster's player pool */
+    private void checkPool(Roster other) throws IllegalArgumentException {
+        if (other.pool != pool) {
+            throw new IllegalArgumentException("Roster is bound to another player pool");
+        }
+    }
+
+    /* Check that rules apply to this roster's player pool */
+    private void checkPool(Rules rules) throws IllegalArgumentException {
+        if (rules.getPool() != null && rules.getPool() != pool) {
+            throw new IllegalArgumentException("Rules are bound to another player pool");
+        }
+    }
+
+    /* Validate a modulus and residue argument pair */
+    private static void checkResidue(int modulus, int residue) throws IllegalArgumentException {
+        if (modulus < 1) {
+            throw new IllegalArgumentException("Modulus is less than 1");
+        }
+        if (residue < 0 || residue >= modulus) {
+            throw new IllegalArgumentException("Residue is not between 0 and modulus - 1");
+        }
+    }
+
+    /* Lowest group number, starting from group, that leaves the residue */
+    private static int alignGroup(int group, int modulus, int residue) {
+        return group + Math.floorMod(residue - group, modulus);
+    }
+
+    /* Size of a group, not counting the member described by entry */
+    private int occupancy(int group, Entry entry) {
+        int size = groupSizes.getOrDefault(group, 0);
+        return (entry != null && groups[entry.index] == group) ? size - 1 : size;
+    }
+
+    /* Drop one member from a group count */
+    private void uncount(int group) {
+        groupSizes.computeIfPresent(group, (g, n) -> n > 1 ? n - 1 : null);
+    }
+
+    /* Resync slots and the rank and group arrays after the players list has been reordered */
+    private void reindex() {
+        int[] sortedRanks = new int[ranks.length];
+        int[] sortedGroups = new int[groups.length];
+        long[] sortedVersions = new long[versions.length];
+        for (int i = 0; i < players.size(); i++) {
+            Entry entry = entries.get(players.get(i));
+            sortedRanks[i] = ranks[entry.index];
+            sortedGroups[i] = groups[entry.index];
+            sortedVersions[i] = versions[entry.index];
+            entry.index = i;
+        }
+        ranks = sortedRanks;
+        groups = sortedGroups;
+        versions = sortedVersions;
+    }
+
+    /* Look up a Player, failing as documented by the public methods */
+    private Player lookup(String name) throws NoSuchElementException {
+        Player p = pool.lookupByName(name);
+        if (p == null) {
+            throw new NoSuchElementException("No Player object for name: " + name);
+        }
+        return p;
+    }
 
     /* ====== Thin wrapper methods ======= */
 
@@ -202,4 +822,129 @@ public class Roster {
         return players.get(i);
     }
 
+    /**
+     * Get rank of the player at index.
+     *
+     * @param i Index to get rank at.
+     * @return Rank of the player.
+     * @throws IndexOutOfBoundsException If i is not a valid index.
+     */
+    public int rankAt(int i) {
+        return ranks[checkIndex(i)];
+    }
+
+    /**
+     * Get group number of the player at index, as counted by this roster.
+     *
+     * @param i Index to get group at.
+     * @return Group number of the player.
+     * @throws IndexOutOfBoundsException If i is not a valid index.
+     */
+    public int groupAt(int i) {
+        return groups[checkIndex(i)];
+    }
+
+    /**
+     * Returns a stream of the ranks of the players, in roster order. The same modification caveats as for
+     * stream() apply. The stream is SIZED and SUBSIZED, so parallel streams split it into even halves.
+     *
+     * @return Stream of player ranks.
+     */
+    public IntStream ranks() {
+        return Arrays.stream(ranks, 0, players.size());
+    }
+
+    /**
+     * Returns a stream of the group numbers of the players, in roster order. The same modification caveats as for
+     * stream() apply. The stream is SIZED and SUBSIZED, so parallel streams split it into even halves.
+     *
+     * @return Stream of group numbers.
+     */
+    public IntStream groups() {
+        return Arrays.stream(groups, 0, players.size());
+    }
+
+    /**
+     * Call the action for every player in roster order, passing the index, name, rank and group of the player.
+     * DO NOT MODIFY the roster from within the action.
+     *
+     * @param action Action to call for each player.
+     */
+    public void forEachIndexed(PlayerConsumer action) {
+        for (int i = 0; i < players.size(); i++) {
+            action.accept(i, players.get(i), ranks[i], groups[i]);
+        }
+    }
+
+    /**
+     * Get the version of the Player object that the rank and group of the player at index were taken from.
+     *
+     * @param i Index to get version at.
+     * @return Player version.
+     * @throws IndexOutOfBoundsException If i is not a valid index.
+     */
+    public long versionAt(int i) {
+        return versions[checkIndex(i)];
+    }
+
+    /**
+     * Check if the player pool has a newer Player object for the player at index than the one this roster
+     * took its rank and group from, for example after a replace done through another roster.
+     *
+     * @param i Index to check.
+     * @return True if the rank and group at the index may be out of date.
+     * @throws IndexOutOfBoundsException If i is not a valid index.
+     */
+    public boolean isStale(int i) {
+        Player p = pool.lookupByName(players.get(checkIndex(i)));
+        return p != null && p.version != versions[i];
+    }
+
+    /**
+     * Names of the members of this roster that are stale and whose Player objects were replaced after the specified
+     * version. Only the changes since that version are examined, not the whole roster.
+     *
+     * @param version Version to compare against, usually an earlier result of currentVersion on the pool.
+     * @return Names of stale members, each at most once.
+     * @throws IllegalArgumentException If version is negative, greater than the current version, or from before the
+     *                                  pool was last cleared.
+     */
+    public List<String> changedSince(long version) throws IllegalArgumentException {
+        // The pool reports each name once, so there is nothing to deduplicate
+        List<String> changed = new ArrayList<String>();
+        for (String name : pool.changedSince(version)) {
+            Entry entry = entries.get(name);
+            if (entry != null && pool.lookupByName(name).version != versions[entry.index]) {
+                changed.add(name);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Take the rank and group of every stale member whose Player object was replaced after the specified version
+     * from the player pool again, updating the group sizes and rank aggregates to match. Group numbers are taken
+     * as they are, without applying any maximum group size rule.
+     *
+     * @param version Version to compare against, usually an earlier result of currentVersion on the pool.
+     * @return Number of members refreshed.
+     * @throws IllegalArgumentException If version is negative, greater than the current version, or from before the
+     *                                  pool was last cleared.
+     */
+    public int refresh(long version) throws IllegalArgumentException {
+        List<String> changed = changedSince(version);
+        for (String name : changed) {
+            sync(entries.get(name), pool.lookupByName(name));
+        }
+        return changed.size();
+    }
+
+    /* Bounds check against the roster size, since the arrays may be larger */
+    private int checkIndex(int i) {
+        if (i < 0 || i >= players.size()) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + players.size());
+        }
+        return i;
+    }
+
 }
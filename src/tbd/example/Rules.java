@@ -1,6 +1,8 @@
 package tbd.example;
 
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.function.Consumer;
 
 /**
  * Rules that influence policy enforcement.
@@ -12,46 +14,90 @@ import java.util.HashSet;
  * + Determine if named player is excluded from moving. Default is no players are excluded from moving. May
  * result in an arrange() failing with Status.Code.TOO_MANY_EXCLUSIONS.
  *
+ * Rules are bound to the PlayerPool whose player names they exclude, the default pool unless another is given, and
+ * can only be applied to rosters of that pool. Rules bound to no pool, such as NoRules, apply to rosters of any pool.
+ *
+ * A Rules object created with the constructor is mutable. A Rules.Builder, or compile(), produces a frozen
+ * snapshot instead, whose setters throw UnsupportedOperationException. Both keep their excluded names in the
+ * same open addressing lookup table, and keep a content hash up to date as names are added. Frozen snapshots
+ * never change, so any number of threads may share one without synchronization. Use toBuilder() to derive a
+ * new snapshot from an existing one.
+ *
  * @see PolicyEnforcer
  * @see Roster
  */
 public class Rules {
-    private int maximumGroup;
-    private HashSet<String> excludedNames;
+    private final PlayerPool pool;
+    private final boolean frozen;
+    /*
+     * The maximum group size and excluded names. Only ever changed through mutable rules. Frozen rules reach it
+     * through this final field, so it is safely published along with them.
+     */
+    private final Content content;
 
     /**
      * Utility Rules object with no constraints, useful for Roster methods that require a rules object
-     * when the constraints are not useful.
+     * when the constraints are not useful. This is a frozen snapshot, so it cannot be altered.
      */
-    static public Rules NoRules;
+    static public final Rules NoRules = new Builder().setPool(null).setMaximumGroup(Integer.MAX_VALUE).build();
 
-    static {
-        NoRules = new Rules();
-        NoRules.setMaximumGroup(Integer.MAX_VALUE);
+    public Rules() {
+        this(PlayerPool.Default());
     }
 
-    public Rules() {
-        maximumGroup = 5;
-        excludedNames = new HashSet<String>();
+    /**
+     * Construct mutable rules with the defaults, bound to a player pool.
+     *
+     * @param aPool Pool of the excluded names, or null if the rules apply to rosters of any pool.
+     */
+    public Rules(PlayerPool aPool) {
+        this(aPool, false, new Content(5, new ExclusionTable(0), 0));
+    }
+
+    /* Full constructor */
+    private Rules(PlayerPool aPool, boolean isFrozen, Content aContent) {
+        pool = aPool;
+        frozen = isFrozen;
+        content = aContent;
+    }
+
+    /**
+     * Player pool these rules are bound to.
+     *
+     * @return The pool, or null if the rules apply to rosters of any pool.
+     */
+    public PlayerPool getPool() {
+        return pool;
     }
 
     /** */
     public int getMaximumGroup() {
-        return maximumGroup;
+        return content.maximumGroup;
     }
 
-    /** */
+    /**
+     * @throws UnsupportedOperationException If these rules are a frozen snapshot.
+     */
     public void setMaximumGroup(int maxGroup) {
-        maximumGroup = maxGroup;
+        checkMutable();
+        content.maximumGroup = maxGroup;
     }
 
     /**
      * Add a name to the exclusion rule.
      *
      * @param name Name to be excluded.
+     * @throws IllegalArgumentException If name is null.
+     * @throws UnsupportedOperationException If these rules are a frozen snapshot.
      */
-    public void addExcludedName(String name) {
-        excludedNames.add(name);
+    public void addExcludedName(String name) throws IllegalArgumentException {
+        checkMutable();
+        if (name == null) {
+            throw new IllegalArgumentException("Name is null");
+        }
+        if (content.names.add(name)) {
+            content.namesHash += nameHash(name);
+        }
     }
 
     /**
@@ -61,6 +107,344 @@ public class Rules {
      * @return True if the name is excluded, otherwise false.
      */
     public boolean isNameExcluded(String name) {
-        return excludedNames.contains(name);
+        return content.names.contains(name);
+    }
+
+    /**
+     * Check if these rules are a frozen snapshot.
+     *
+     * @return True if the rules can never change, false if they are mutable.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Hash of the maximum group size and the set of excluded names. Equal rules have equal content hashes,
+     * whatever order the names were added in. Kept up to date as names are added, so it costs nothing to call.
+     *
+     * @return 64-bit content hash.
+     */
+    public long contentHash() {
+        return mix(content.maximumGroup) + content.namesHash;
+    }
+
+    /**
+     * Compile a frozen snapshot of these rules. Later changes to these rules do not affect the snapshot.
+     *
+     * @return A frozen snapshot, or these rules themselves if they are already frozen.
+     */
+    public Rules compile() {
+        return frozen ? this : toBuilder().build();
+    }
+
+    /**
+     * Start a builder from the current state of these rules. Deriving from a frozen snapshot shares its
+     * compiled table, so only the changes made through the builder cost anything to build.
+     *
+     * @return A new builder.
+     */
+    public Builder toBuilder() {
+        if (frozen) {
+            return new Builder(this);
+        }
+        Builder builder = new Builder();
+        builder.setPool(pool);
+        builder.setMaximumGroup(content.maximumGroup);
+        content.names.forEach(builder::addExcludedName);
+        return builder;
+    }
+
+    /**
+     * Frozen rules are equal if they are bound to the same pool and have the same maximum group size and
+     * excluded names. Mutable rules are only equal to themselves.
+     *
+     * @param obj The object to compare to.
+     * @return True if the objects are equal, false otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Rules))
+            return false;
+        Rules other = (Rules) obj;
+        return frozen && other.frozen && pool == other.pool && contentHash() == other.contentHash()
+                && content.maximumGroup == other.content.maximumGroup && content.names.sameNames(other.content.names);
+    }
+
+    @Override
+    public int hashCode() {
+        return frozen ? Long.hashCode(contentHash()) : System.identityHashCode(this);
+    }
+
+    /* Fail if these rules are a frozen snapshot */
+    private void checkMutable() throws UnsupportedOperationException {
+        if (frozen) {
+            throw new UnsupportedOperationException("Rules are frozen");
+        }
+    }
+
+    /* 64-bit hash of a name for content hashes, independent of String.hashCode */
+    private static long nameHash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /* Scramble the bits of a value, so that sums of hashes do not cancel out */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    /**
+     * Builder of frozen Rules snapshots. A builder is not thread safe, but the snapshots it builds are.
+     */
+    public static class Builder {
+        private PlayerPool pool;
+        private int maximumGroup;
+        private Rules base;
+        private HashSet<String> added;
+        private HashSet<String> removed;
+
+        /**
+         * Start from the defaults: the default player pool, a maximum group size of 5 and no excluded names.
+         */
+        public Builder() {
+            pool = PlayerPool.Default();
+            maximumGroup = 5;
+            added = new HashSet<String>();
+            removed = new HashSet<String>();
+        }
+
+        /* Start from a frozen snapshot, sharing its table */
+        private Builder(Rules aBase) {
+            this();
+            base = aBase;
+            pool = aBase.pool;
+            maximumGroup = aBase.content.maximumGroup;
+        }
+
+        /**
+         * @param aPool Pool of the excluded names, or null if the rules apply to rosters of any pool.
+         * @return This builder.
+         */
+        public Builder setPool(PlayerPool aPool) {
+            pool = aPool;
+            return this;
+        }
+
+        /** */
+        public Builder setMaximumGroup(int maxGroup) {
+            maximumGroup = maxGroup;
+            return this;
+        }
+
+        /**
+         * Add a name to the exclusion rule.
+         *
+         * @param name Name to be excluded.
+         * @return This builder.
+         * @throws IllegalArgumentException If name is null.
+         */
+        public Builder addExcludedName(String name) throws IllegalArgumentException {
+            if (name == null) {
+                throw new IllegalArgumentException("Name is null");
+            }
+            if (!removed.remove(name) && (base == null || !base.content.names.contains(name))) {
+                added.add(name);
+            }
+            return this;
+        }
+
+        /**
+         * Add names to the exclusion rule.
+         *
+         * @param names Names to be excluded.
+         * @return This builder.
+         * @throws IllegalArgumentException If a name is null.
+         */
+        public Builder addExcludedNames(Collection<String> names) throws IllegalArgumentException {
+            for (String name : names) {
+                addExcludedName(name);
+            }
+            return this;
+        }
+
+        /**
+         * Remove a name from the exclusion rule, if it is there.
+         *
+         * @param name Name to stop excluding.
+         * @return This builder.
+         */
+        public Builder removeExcludedName(String name) {
+            if (!added.remove(name) && base != null && base.content.names.contains(name)) {
+                removed.add(name);
+            }
+            return this;
+        }
+
+        /**
+         * Build a frozen snapshot. The builder may be used again afterwards.
+         *
+         * @return Frozen rules.
+         */
+        public Rules build() {
+            if (base != null && added.isEmpty() && removed.isEmpty() && maximumGroup == base.content.maximumGroup
+                    && pool == base.pool) {
+                return base;
+            }
+
+            // The names hash is a sum over the names, so it only needs adjusting for the changes
+            long namesHash = 0;
+            ExclusionTable table;
+            if (base == null) {
+                table = new ExclusionTable(added.size());
+            } else {
+                namesHash = base.content.namesHash;
+                ExclusionTable names = base.content.names;
+                table = removed.isEmpty() ? names.copy(added.size()) : names.without(removed, added.size());
+            }
+            for (String name : added) {
+                table.add(name);
+                namesHash += nameHash(name);
+            }
+            for (String name : removed) {
+                namesHash -= nameHash(name);
+            }
+            return new Rules(pool, true, new Content(maximumGroup, table, namesHash));
+        }
+    }
+
+    /*
+     * State of a Rules object. The names hash is the sum of the name hashes of the excluded names.
+     */
+    private static final class Content {
+        int maximumGroup;
+        final ExclusionTable names;
+        long namesHash;
+
+        Content(int aMaximumGroup, ExclusionTable someNames, long aNamesHash) {
+            maximumGroup = aMaximumGroup;
+            names = someNames;
+            namesHash = aNamesHash;
+        }
+    }
+
+    /*
+     * Open addressing hash set of names, with the String hash codes kept alongside so that most probes compare
+     * ints rather than strings. Mutated by mutable rules, and by a Builder while it is building a snapshot.
+     */
+    private static final class ExclusionTable {
+        private String[] names;
+        private int[] hashes;
+        private int size;
+
+        ExclusionTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+            names = new String[capacity];
+            hashes = new int[capacity];
+        }
+
+        boolean contains(String name) {
+            if (size == 0 || name == null) {
+                return false;
+            }
+            int hash = name.hashCode();
+            int mask = names.length - 1;
+            for (int i = spread(hash) & mask; names[i] != null; i = (i + 1) & mask) {
+                if (hashes[i] == hash && names[i].equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /* Add a name, returning false if it was already there */
+        boolean add(String name) {
+            if ((size + 1) * 2 > names.length) {
+                rehash(names.length * 2);
+            }
+            int hash = name.hashCode();
+            int mask = names.length - 1;
+            int i = spread(hash) & mask;
+            while (names[i] != null) {
+                if (hashes[i] == hash && names[i].equals(name)) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            names[i] = name;
+            hashes[i] = hash;
+            size++;
+            return true;
+        }
+
+        void forEach(Consumer<String> action) {
+            for (String name : names) {
+                if (name != null) {
+                    action.accept(name);
+                }
+            }
+        }
+
+        /* Copy with room for more names */
+        ExclusionTable copy(int more) {
+            ExclusionTable copy = new ExclusionTable(size + more);
+            if (copy.names.length == names.length) {
+                copy.names = names.clone();
+                copy.hashes = hashes.clone();
+                copy.size = size;
+            } else {
+                copy.addAllFrom(this);
+            }
+            return copy;
+        }
+
+        /* Copy without some names, with room for more names */
+        ExclusionTable without(Collection<String> dropped, int more) {
+            ExclusionTable copy = new ExclusionTable(size + more);
+            for (String name : names) {
+                if (name != null && !dropped.contains(name)) {
+                    copy.add(name);
+                }
+            }
+            return copy;
+        }
+
+        boolean sameNames(ExclusionTable other) {
+            if (size != other.size) {
+                return false;
+            }
+            for (String name : names) {
+                if (name != null && !other.contains(name)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash(int capacity) {
+            ExclusionTable bigger = new ExclusionTable(capacity / 2);
+            bigger.addAllFrom(this);
+            names = bigger.names;
+            hashes = bigger.hashes;
+        }
+
+        private void addAllFrom(ExclusionTable other) {
+            for (String name : other.names) {
+                if (name != null) {
+                    add(name);
+                }
+            }
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
     }
 }
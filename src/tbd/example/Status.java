@@ -29,8 +29,17 @@ public enum Status {
     /**
      * Ranks are too lopsided to meet goal of no more than 90 apart. For example, if the left roster
      * has five players of rank 1, and right roster has one player of rank 100, there is no arrangement
-     * of 3 vs 3 or 4 vs 2 players whose rank sums that are no more than 90 apart.
+     * of 3 vs 3 or 4 vs 2 players whose rank sums that are no more than 90 apart. For more than two rosters, the
+     * PartitionEnforcer reports this when its search finds no arrangement, which does not prove there is none.
      */
-    RANKS_TOO_LOPSIDED
+    RANKS_TOO_LOPSIDED,
+
+    /**
+     * A constraint of the COMBINED policy is not met because meeting it would break more heavily weighted
+     * constraints, or because the time budget ran out before an arrangement meeting it was found.
+     *
+     * @see Constraints
+     */
+    CONSTRAINTS_CONFLICT
 
 }
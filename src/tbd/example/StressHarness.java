@@ -0,0 +1,167 @@
+package tbd.example;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+This CLI program runs the PolicyEnforcer repeatedly over generated workloads and writes a latency report.
+
+Usage: StressHarness [report-file] [roster-size ...]
+
+For every roster size (10, 1000 and 100000 players if none are given), it generates a random workload and the
+two failure edge cases, then arranges each of them with every Policy, using the default Constraints for
+COMBINED. Sizes of at least 16 and 128 players are also spread over 8 and 64 rosters and arranged by the
+PartitionEnforcer. Each arrange() call is timed on its own, and slow policies are given fewer rounds. The report
+lists, per size, scenario and policy: the p50/p99/p999 latencies, the bytes allocated per arrangement, the
+throughput, and how often each Status was returned compared with the expected one.
+
+Note that the PolicyEnforcer updates group numbers by replacing players in their pool, so the group numbers
+of a workload drift from one iteration to the next. Workloads are generated into a player pool of their own,
+which is cleared once the workload is measured, so only one workload at a time takes up heap.
+*/
+
+public class StressHarness {
+    private static final int[] DEFAULT_SIZES = {10, 1_000, 100_000};
+    private static final int[] PARTITIONS = {8, 64};
+    private static final String DEFAULT_REPORT = "stress_report.txt";
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final long MEASURE_NANOS = 5_000_000_000L;
+
+    public static void main(String[] args) {
+        String report = (args.length > 0) ? args[0] : DEFAULT_REPORT;
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 1) {
+            sizes = Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray();
+        }
+
+        PlayerPool pool = new PlayerPool("stress", Arrays.stream(sizes).max().orElse(0));
+        try (PrintWriter out = new PrintWriter(new FileWriter(report))) {
+            out.printf("%-9s %-20s %-10s %6s %10s %10s %10s %12s %12s %14s  %s%n",
+                    "players", "scenario", "policy", "iters", "p50(us)", "p99(us)", "p999(us)",
+                    "alloc/op(B)", "ops/s", "players/s", "statuses");
+            for (int size : sizes) {
+                for (Workload.Scenario scenario : Workload.Scenario.values()) {
+                    if (scenario != Workload.Scenario.RANDOM && size < 6) {
+                        continue;
+                    }
+                    Workload workload = new Workload(size);
+                    workload.setScenario(scenario);
+                    workload.setPool(pool);
+                    run(workload, out);
+                }
+                for (int rosterCount : PARTITIONS) {
+                    if (size >= 2 * rosterCount) {
+                        Workload workload = new Workload(size);
+                        workload.setPool(pool);
+                        runPartitions(workload, rosterCount, out);
+                    }
+                }
+                out.flush();
+                System.out.printf("Finished %d players%n", size);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.printf("%n%nERROR: %s%n", e);
+        }
+    }
+
+    /* Arrange one workload by every policy, reporting one line per policy, then release its players */
+    private static void run(Workload workload, PrintWriter out) {
+        Rules building = new Rules(workload.getPool());
+        Pair<Roster> rosters = workload.generate(building);
+        Rules rules = building.compile();
+
+        for (PolicyEnforcer.Policy policy : PolicyEnforcer.Policy.values()) {
+            PolicyEnforcer enforcer = new PolicyEnforcer(policy, rules, rosters.first, rosters.second);
+            measure(out, workload.getPlayers(), workload.getScenario().toString(), policy,
+                    workload.expectedStatus(policy), enforcer::arrange);
+        }
+        workload.getPool().clear();
+    }
+
+    /* Arrange one workload spread over many rosters by every policy the PartitionEnforcer supports, then release it */
+    private static void runPartitions(Workload workload, int rosterCount, PrintWriter out) {
+        Rules building = new Rules(workload.getPool());
+        List<Roster> rosters = workload.generate(building, rosterCount);
+        Rules rules = building.compile();
+
+        for (PolicyEnforcer.Policy policy : PolicyEnforcer.Policy.values()) {
+            if (policy == PolicyEnforcer.Policy.COMBINED) {
+                continue;
+            }
+            PartitionEnforcer enforcer = new PartitionEnforcer(policy, rules, rosters);
+            measure(out, workload.getPlayers(), "RANDOM/" + rosterCount + " rosters", policy, null,
+                    enforcer::arrange);
+        }
+        workload.getPool().clear();
+    }
+
+    /* Time repeated arrangements, reporting one line */
+    private static void measure(PrintWriter out, int size, String scenario, PolicyEnforcer.Policy policy,
+                                Status expected, Supplier<Status> arrange) {
+        int warmups = Math.max(1, Math.min(200, 200_000 / size));
+        int maxIterations = Math.max(5, Math.min(2_000, 5_000_000 / size));
+
+        // Slow policies, such as COMBINED running out its time budget, get fewer rounds
+        long warmupStarted = System.nanoTime();
+        int warmed = 0;
+        while (warmed < warmups && System.nanoTime() - warmupStarted < WARMUP_NANOS) {
+            arrange.get();
+            warmed++;
+        }
+        long perArrange = Math.max(1, (System.nanoTime() - warmupStarted) / warmed);
+        int iterations = (int) Math.max(5, Math.min(maxIterations, MEASURE_NANOS / perArrange));
+
+        long[] latencies = new long[iterations];
+        EnumMap<Status, Integer> statuses = new EnumMap<Status, Integer>(Status.class);
+        long allocatedBefore = allocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long t0 = System.nanoTime();
+            Status status = arrange.get();
+            latencies[i] = System.nanoTime() - t0;
+            statuses.merge(status, 1, Integer::sum);
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocatedAfter = allocatedBytes();
+
+        Arrays.sort(latencies);
+        double seconds = elapsed / 1e9;
+        String tally = statuses.toString();
+        if (expected != null && (statuses.size() != 1 || !statuses.containsKey(expected))) {
+            tally += " EXPECTED " + expected;
+        }
+        out.printf("%-9d %-20s %-10s %6d %10.1f %10.1f %10.1f %12s %12.1f %14.0f  %s%n",
+                size, scenario, policy, iterations,
+                percentile(latencies, 0.50) / 1e3,
+                percentile(latencies, 0.99) / 1e3,
+                percentile(latencies, 0.999) / 1e3,
+                (allocatedBefore < 0) ? "n/a" : Long.toString((allocatedAfter - allocatedBefore) / iterations),
+                iterations / seconds,
+                (double) iterations * size / seconds,
+                tally);
+    }
+
+    /* Nearest-rank percentile of sorted samples */
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /* Bytes allocated so far by the current thread, or -1 if the JVM cannot tell */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,312 @@
+package tbd.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator of roster pairs for scale and stress testing of the PolicyEnforcer.
+ *
+ * A workload describes how many players to create, how their ranks and groups are distributed, what fraction of
+ * them is excluded from moving, and how the players are split between the left and the right roster. Besides
+ * random rosters, a workload can produce the edge cases that the policies must report as failures.
+ *
+ * Every generated player is added to the player pool of the workload, the default pool unless another is set,
+ * under a name that is unique to the generation, so the same workload may be generated any number of times.
+ *
+ * @see StressHarness
+ */
+public class Workload {
+
+    /**
+     * Shape of the rank distribution of generated players.
+     *
+     * UNIFORM - every rank from 1 to 100 is equally likely.
+     *
+     * BELL - ranks cluster around 50.
+     *
+     * TOP_HEAVY - ranks cluster near 100.
+     *
+     * BOTTOM_HEAVY - ranks cluster near 1.
+     */
+    public enum RankDistribution {
+        UNIFORM,
+        BELL,
+        TOP_HEAVY,
+        BOTTOM_HEAVY
+    }
+
+    /**
+     * Kind of roster pair to generate.
+     *
+     * RANDOM - players are drawn from the configured distributions.
+     *
+     * TOO_MANY_EXCLUSIONS - a single player in the left roster and only excluded players in the right, so
+     * neither BY_NUMBER, BY_RANK nor COMBINED can even out the player counts.
+     *
+     * RANKS_TOO_LOPSIDED - players of rank 1 in the left roster and a single player of rank 100 in the right,
+     * so no arrangement with player counts within 2 of each other brings the rank sums within 90. COMBINED can
+     * only meet the rank sum window by giving up the count difference, once there are 10 or more players of rank 1.
+     */
+    public enum Scenario {
+        RANDOM,
+        TOO_MANY_EXCLUSIONS,
+        RANKS_TOO_LOPSIDED
+    }
+
+    // Statics
+    private static int Generation = 0;
+
+    // Fields
+    private PlayerPool pool;
+    private int players;
+    private RankDistribution rankDistribution;
+    private int groups;
+    private double exclusionRatio;
+    private double leftShare;
+    private Scenario scenario;
+    private long seed;
+
+    /**
+     * Construct a workload of randomly distributed players. Defaults to uniform ranks, groups of about four
+     * players, 20% of the players excluded and 30% of the players in the left roster.
+     *
+     * @param somePlayers Total number of players in both rosters, must be at least 2.
+     * @throws IllegalArgumentException If the number of players is less than 2.
+     */
+    public Workload(int somePlayers) throws IllegalArgumentException {
+        if (somePlayers < 2) {
+            throw new IllegalArgumentException("somePlayers is < 2");
+        }
+        pool = PlayerPool.Default();
+        players = somePlayers;
+        rankDistribution = RankDistribution.UNIFORM;
+        groups = Math.max(1, somePlayers / 4);
+        exclusionRatio = 0.2;
+        leftShare = 0.3;
+        scenario = Scenario.RANDOM;
+        seed = 1;
+    }
+
+    /** */
+    public PlayerPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @param aPool Pool to add the generated players to. Rules passed to generate must be bound to it, or to
+     *              no pool.
+     * @throws IllegalArgumentException If aPool is null.
+     */
+    public void setPool(PlayerPool aPool) throws IllegalArgumentException {
+        if (aPool == null) {
+            throw new IllegalArgumentException("aPool is null");
+        }
+        pool = aPool;
+    }
+
+    /** */
+    public int getPlayers() {
+        return players;
+    }
+
+    /** */
+    public Scenario getScenario() {
+        return scenario;
+    }
+
+    /**
+     * @param aScenario Kind of roster pair to generate. Edge case scenarios need at least 6 players.
+     * @throws IllegalArgumentException If an edge case is requested with fewer than 6 players.
+     */
+    public void setScenario(Scenario aScenario) throws IllegalArgumentException {
+        if (aScenario != Scenario.RANDOM && players < 6) {
+            throw new IllegalArgumentException("Edge case scenarios need at least 6 players");
+        }
+        scenario = aScenario;
+    }
+
+    /** */
+    public void setRankDistribution(RankDistribution aDistribution) {
+        rankDistribution = aDistribution;
+    }
+
+    /**
+     * @param someGroups Number of distinct group numbers, drawn uniformly from 1 to someGroups.
+     * @throws IllegalArgumentException If someGroups is less than 1.
+     */
+    public void setGroups(int someGroups) throws IllegalArgumentException {
+        if (someGroups < 1) {
+            throw new IllegalArgumentException("someGroups is < 1");
+        }
+        groups = someGroups;
+    }
+
+    /**
+     * @param ratio Fraction of the players, from 0 to 1, that is excluded from moving.
+     * @throws IllegalArgumentException If ratio is out of range.
+     */
+    public void setExclusionRatio(double ratio) throws IllegalArgumentException {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException("ratio is not between 0 and 1");
+        }
+        exclusionRatio = ratio;
+    }
+
+    /**
+     * @param share Fraction of the players, from 0 to 1, placed in the left roster. Each roster always
+     *              receives at least one player.
+     * @throws IllegalArgumentException If share is out of range.
+     */
+    public void setLeftShare(double share) throws IllegalArgumentException {
+        if (share < 0 || share > 1) {
+            throw new IllegalArgumentException("share is not between 0 and 1");
+        }
+        leftShare = share;
+    }
+
+    /** */
+    public void setSeed(long aSeed) {
+        seed = aSeed;
+    }
+
+    /**
+     * The status each policy is expected to report for this workload.
+     *
+     * @param policy Policy to check.
+     * @return Expected status, or null if the status depends on the random draw.
+     */
+    public Status expectedStatus(PolicyEnforcer.Policy policy) {
+        switch (scenario) {
+            case TOO_MANY_EXCLUSIONS:
+                return policy == PolicyEnforcer.Policy.BY_GROUP ? Status.SUCCESS : Status.TOO_MANY_EXCLUSIONS;
+
+            case RANKS_TOO_LOPSIDED:
+                if (policy == PolicyEnforcer.Policy.COMBINED) {
+                    return (players - 1 >= 10) ? Status.CONSTRAINTS_CONFLICT : Status.RANKS_TOO_LOPSIDED;
+                }
+                return (policy == PolicyEnforcer.Policy.BY_RANK) ? Status.RANKS_TOO_LOPSIDED : Status.SUCCESS;
+
+            case RANDOM:
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Generate a fresh pair of rosters. Excluded players are added to the specified rules after the rosters
+     * are built, the same way Main does it.
+     *
+     * @param rules Rules to build the rosters with, and to receive the excluded names.
+     * @return Pair of left (first) and right (second) rosters, neither of them empty.
+     */
+    public Pair<Roster> generate(Rules rules) {
+        Random random = new Random(seed);
+        pool.ensureCapacity(pool.size() + players);
+        String prefix = "W" + (Generation++) + ".";
+        Roster left = new Roster(pool);
+        Roster right = new Roster(pool);
+
+        int leftCount = (int) Math.round(players * leftShare);
+        leftCount = Math.max(1, Math.min(players - 1, leftCount));
+        if (scenario != Scenario.RANDOM) {
+            leftCount = (scenario == Scenario.TOO_MANY_EXCLUSIONS) ? 1 : players - 1;
+        }
+
+        boolean[] excluded = new boolean[players];
+        for (int i = 0; i < players; i++) {
+            String name = prefix + i;
+            boolean isLeft = i < leftCount;
+            int group = 1 + random.nextInt(groups);
+            int rank;
+            switch (scenario) {
+                case TOO_MANY_EXCLUSIONS:
+                    rank = nextRank(random);
+                    excluded[i] = !isLeft;
+                    break;
+
+                case RANKS_TOO_LOPSIDED:
+                    rank = isLeft ? 1 : 100;
+                    excluded[i] = false;
+                    break;
+
+                case RANDOM:
+                default:
+                    rank = nextRank(random);
+                    excluded[i] = random.nextDouble() < exclusionRatio;
+                    break;
+            }
+            (isLeft ? left : right).add(pool.create(name, group, rank).name, rules);
+        }
+
+        for (int i = 0; i < players; i++) {
+            if (excluded[i]) {
+                rules.addExcludedName(prefix + i);
+            }
+        }
+        return new Pair<Roster>(left, right);
+    }
+
+    /**
+     * Generate a fresh list of rosters for the PartitionEnforcer. Players are drawn from the configured
+     * distributions, as in the RANDOM scenario whatever the scenario is, and spread unevenly over the rosters, the
+     * first roster receiving about three times as many players as the last. Excluded players are added to the
+     * specified rules after the rosters are built.
+     *
+     * @param rules Rules to build the rosters with, and to receive the excluded names.
+     * @param rosterCount Number of rosters, at least 2.
+     * @return Rosters, some of which may be empty.
+     * @throws IllegalArgumentException If rosterCount is less than 2.
+     */
+    public List<Roster> generate(Rules rules, int rosterCount) throws IllegalArgumentException {
+        if (rosterCount < 2) {
+            throw new IllegalArgumentException("rosterCount is < 2");
+        }
+        Random random = new Random(seed);
+        pool.ensureCapacity(pool.size() + players);
+        String prefix = "W" + (Generation++) + ".";
+        List<Roster> rosters = new ArrayList<Roster>(rosterCount);
+        for (int i = 0; i < rosterCount; i++) {
+            rosters.add(new Roster(pool));
+        }
+
+        boolean[] excluded = new boolean[players];
+        for (int i = 0; i < players; i++) {
+            double u = random.nextDouble();
+            int group = 1 + random.nextInt(groups);
+            int rank = nextRank(random);
+            excluded[i] = random.nextDouble() < exclusionRatio;
+            rosters.get((int) (rosterCount * u * (1 + u) / 2)).add(pool.create(prefix + i, group, rank).name, rules);
+        }
+
+        for (int i = 0; i < players; i++) {
+            if (excluded[i]) {
+                rules.addExcludedName(prefix + i);
+            }
+        }
+        return rosters;
+    }
+
+    /* Draw a rank from the configured distribution */
+    private int nextRank(Random random) {
+        switch (rankDistribution) {
+            case BELL:
+                return clampRank(50.5 + 16 * random.nextGaussian());
+
+            case TOP_HEAVY:
+                return clampRank(100 - Math.abs(25 * random.nextGaussian()));
+
+            case BOTTOM_HEAVY:
+                return clampRank(1 + Math.abs(25 * random.nextGaussian()));
+
+            case UNIFORM:
+            default:
+                return 1 + random.nextInt(100);
+        }
+    }
+
+    /* Round into the legal rank range */
+    private static int clampRank(double rank) {
+        return (int) Math.max(1, Math.min(100, Math.round(rank)));
+    }
+}